@@ -9,3 +9,136 @@ insert into company (name)
 values ('Company #1'),
        ('Company #2'),
        ('Company #3');
+
+create sequence contact_person_seq start with 1 increment by 50;
+
+-- Contacts are hash-partitioned by company: a company-scoped query (company_id = ?) reads a single
+-- partition. The partition key must be part of every unique constraint on a partitioned table, so the
+-- primary key is (id, company_id); ids stay globally unique through the sequence. Lookups by id alone
+-- (detail, version check, update, soft delete) cannot be pruned and probe the id index of all 16
+-- partitions (see CompanyPartitionBenchmark.contactById).
+-- Email and phone number stay globally unique, as on H2: the unpartitioned contact_person_email and
+-- contact_person_phone_number tables hold the keys and are maintained by a trigger in the same
+-- transaction, so a duplicate fails with a unique violation just like a table constraint.
+create table contact_person
+(
+    id            bigint       not null,
+    first_name    varchar(255),
+    last_name     varchar(255),
+    email         varchar(255),
+    phone_number  varchar(255),
+    company_id    bigint       not null,
+    comment       text,
+    status        varchar(255),
+    created_at    timestamp,
+    last_modified timestamp,
+    version       bigint       not null default 0,
+    comment_tsv   tsvector generated always as (to_tsvector('simple', coalesce(comment, ''))) stored,
+    constraint pk_contact_person primary key (id, company_id),
+    constraint fk_contact_person_company foreign key (company_id) references company (id)
+) partition by hash (company_id);
+
+do
+$$
+    begin
+        for i in 0..15
+            loop
+                execute format('create table contact_person_p%s partition of contact_person '
+                                   'for values with (modulus 16, remainder %s)', i, i);
+            end loop;
+    end
+$$;
+
+create table contact_person_email
+(
+    email      varchar(255) not null,
+    contact_id bigint       not null,
+    constraint pk_contact_person_email primary key (email)
+);
+
+create table contact_person_phone_number
+(
+    phone_number varchar(255) not null,
+    contact_id   bigint       not null,
+    constraint pk_contact_person_phone_number primary key (phone_number)
+);
+
+create function contact_person_unique_keys() returns trigger
+    language plpgsql as
+$$
+begin
+    if tg_op = 'DELETE' then
+        delete from contact_person_email where email = old.email;
+        delete from contact_person_phone_number where phone_number = old.phone_number;
+        return old;
+    end if;
+    if tg_op = 'UPDATE' and old.email is not distinct from new.email then
+        null;
+    else
+        if tg_op = 'UPDATE' then
+            delete from contact_person_email where email = old.email;
+        end if;
+        if new.email is not null then
+            insert into contact_person_email (email, contact_id) values (new.email, new.id);
+        end if;
+    end if;
+    if tg_op = 'UPDATE' and old.phone_number is not distinct from new.phone_number then
+        null;
+    else
+        if tg_op = 'UPDATE' then
+            delete from contact_person_phone_number where phone_number = old.phone_number;
+        end if;
+        if new.phone_number is not null then
+            insert into contact_person_phone_number (phone_number, contact_id) values (new.phone_number, new.id);
+        end if;
+    end if;
+    return new;
+end
+$$;
+
+create trigger trg_contact_person_unique_keys
+    after insert or update of email, phone_number or delete
+    on contact_person
+    for each row
+execute function contact_person_unique_keys();
+
+-- Listing: status = 'ACTIVE' + optional filters, ordered by first_name, last_name, id.
+create index idx_contact_person_status_name on contact_person (status, first_name, last_name, id);
+create index idx_contact_person_active_name on contact_person (first_name, last_name, id) where status = 'ACTIVE';
+-- Company-scoped listing: several companies share a partition.
+create index idx_contact_person_company_name on contact_person (company_id, first_name, last_name, id)
+    where status = 'ACTIVE';
+
+create index idx_company_name on company (name);
+
+-- Comment full-text search: the tsvector is computed on write, queries only read the GIN index.
+create index idx_contact_person_comment_tsv on contact_person using gin (comment_tsv);
+
+-- Append-only change log, written in batches by ContactChangeLog; id is the change sequence number.
+create table contact_change
+(
+    id              bigint       not null,
+    contact_id      bigint       not null,
+    type            varchar(255) not null,
+    contact_version bigint,
+    changed_at      timestamp    not null,
+    payload         text,
+    constraint pk_contact_change primary key (id)
+);
+
+-- Locked by every change log batch, so ids are assigned and committed in order across instances.
+create table contact_change_writer
+(
+    id int not null,
+    constraint pk_contact_change_writer primary key (id)
+);
+
+insert into contact_change_writer (id) values (1);
+
+-- Completed one-off data migrations, e.g. the E.164 phone number backfill (PhoneNumberBackfill).
+create table data_migration
+(
+    name         varchar(100) not null,
+    completed_at timestamp    not null,
+    constraint pk_data_migration primary key (name)
+);
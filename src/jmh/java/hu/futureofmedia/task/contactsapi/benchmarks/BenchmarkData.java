@@ -0,0 +1,77 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import hu.futureofmedia.task.contactsapi.ContactsApiApplication;
+
+/**
+ * A mrsekhez hasznlt alkalmazskrnyezet s tesztadatok. Az adatok fix
+ * seed-del generltak, gy a kiadsok kztti eredmnyek sszevethetek.
+ */
+final class BenchmarkData {
+
+	static final long ID_OFFSET = 1_000_000L;
+	static final long SEED = 20210914L;
+
+	private static final int BATCH_SIZE = 1000;
+	private static final String[] FIRST_NAMES = { "Anna", "Bence", "Csaba", "Dra", "Eszter", "Ferenc", "Gbor",
+			"Hanna", "Istvn", "Judit", "Katalin", "Lszl", "Mrton", "Nra", "Pter", "Rka", "Sndor", "Tams",
+			"Viktria", "Zoltn" };
+	private static final String[] LAST_NAMES = { "Nagy", "Kovcs", "Tth", "Szab", "Horvth", "Varga", "Kiss",
+			"Molnr", "Nmeth", "Farkas", "Balogh", "Papp", "Takcs", "Juhsz", "Lakatos", "Mszros", "Olh",
+			"Simon", "Rcz", "Fekete" };
+
+	private BenchmarkData() {
+	}
+
+	static ConfigurableApplicationContext startApplication(String databaseName) {
+		return new SpringApplicationBuilder(ContactsApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.run("--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+	}
+
+	static ConfigurableApplicationContext startWebApplication(String databaseName, boolean virtualThreads) {
+		return new SpringApplicationBuilder(ContactsApiApplication.class)
+				.run("--spring.datasource.url=jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1",
+						"--server.port=0", "--contacts.virtual-threads.enabled=" + virtualThreads,
+						"--contacts.rate-limit.enabled=false");
+	}
+
+	static void seedContacts(JdbcTemplate jdbc, int count) {
+		Random random = new Random(SEED);
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<Object[]> companies = new ArrayList<>();
+		List<Object[]> rows = new ArrayList<>();
+		for (long i = 0; i < count; i++) {
+			long id = ID_OFFSET + i;
+			companies.add(new Object[] { id, "Benchmark company " + i });
+			rows.add(new Object[] { id, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+					LAST_NAMES[random.nextInt(LAST_NAMES.length)] + i, email(i), phoneNumber(i), id,
+					"Seeded comment " + random.nextInt(1000), "ACTIVE", now });
+			if (rows.size() == BATCH_SIZE || i == count - 1) {
+				jdbc.batchUpdate("insert into company (id, name) values (?, ?)", companies);
+				jdbc.batchUpdate("insert into contact_person (id, first_name, last_name, email, phone_number, "
+						+ "company_id, comment, status, created_at, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)", rows);
+				companies.clear();
+				rows.clear();
+			}
+		}
+	}
+
+	static String email(long i) {
+		return "bench" + i + "@example.com";
+	}
+
+	static String phoneNumber(long i) {
+		return "+3630" + (1000000 + i);
+	}
+
+}
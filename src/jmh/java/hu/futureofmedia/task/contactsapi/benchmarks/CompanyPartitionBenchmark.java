@@ -0,0 +1,133 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Egy cg kapcsolattartinak listzsa cg szerint particionlt s
+ * particionlatlan tbln, PostgreSQL-en (a H2 nem particionl). Az
+ * adatbzis a {@code bench.postgres.url}, {@code bench.postgres.user} s
+ * {@code bench.postgres.password} rendszertulajdonsgokkal adhat meg,
+ * alaprtelmezetten a docker-compose pldnya. A tblk az els futskor
+ * tltdnek fel, utna jra felhasznlhatak.
+ *
+ * A {@link #contactById()} a cg nlkli, azonost szerinti keress rt
+ * mri: ezt a particionlt tbla nem tudja egy partcira szkteni, minden
+ * partci indext megnzi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompanyPartitionBenchmark {
+
+	private static final int PARTITIONS = 16;
+	private static final String COLUMNS = "(id bigint not null, first_name varchar(255), last_name varchar(255), "
+			+ "email varchar(255), company_id bigint not null, status varchar(255))";
+
+	@Param({ "10000000" })
+	private int contacts;
+
+	@Param({ "1000" })
+	private int companies;
+
+	@Param({ "partitioned", "unpartitioned" })
+	private String layout;
+
+	private Connection connection;
+	private PreparedStatement listPage;
+	private PreparedStatement byId;
+
+	@Setup(Level.Trial)
+	public void setUp() throws SQLException {
+		connection = DriverManager.getConnection(
+				System.getProperty("bench.postgres.url", "jdbc:postgresql://localhost:15432/contactsapi"),
+				System.getProperty("bench.postgres.user", "contactsapi"),
+				System.getProperty("bench.postgres.password", "contactsapi"));
+		String table = "bench_contact_" + layout + "_" + contacts;
+		if (!exists(table)) {
+			create(table);
+		}
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("create index if not exists " + table + "_id on " + table + " (id)");
+		}
+		listPage = connection.prepareStatement("select id, first_name, last_name, email from " + table
+				+ " where company_id = ? and status = 'ACTIVE' order by first_name, last_name, id limit 10");
+		byId = connection.prepareStatement("select id, first_name, last_name, email from " + table + " where id = ?");
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Benchmark
+	public List<Long> companyPage() throws SQLException {
+		listPage.setLong(1, ThreadLocalRandom.current().nextInt(companies));
+		List<Long> ids = new ArrayList<>(10);
+		try (ResultSet rs = listPage.executeQuery()) {
+			while (rs.next()) {
+				ids.add(rs.getLong(1));
+			}
+		}
+		return ids;
+	}
+
+	@Benchmark
+	public String contactById() throws SQLException {
+		byId.setLong(1, ThreadLocalRandom.current().nextInt(contacts) + 1L);
+		try (ResultSet rs = byId.executeQuery()) {
+			return rs.next() ? rs.getString(4) : null;
+		}
+	}
+
+	private boolean exists(String table) throws SQLException {
+		try (PreparedStatement statement = connection.prepareStatement("select to_regclass(?) is not null")) {
+			statement.setString(1, table);
+			try (ResultSet rs = statement.executeQuery()) {
+				rs.next();
+				return rs.getBoolean(1);
+			}
+		}
+	}
+
+	private void create(String table) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			if (layout.equals("partitioned")) {
+				statement.execute("create table " + table + " " + COLUMNS + " partition by hash (company_id)");
+				for (int i = 0; i < PARTITIONS; i++) {
+					statement.execute("create table " + table + "_p" + i + " partition of " + table
+							+ " for values with (modulus " + PARTITIONS + ", remainder " + i + ")");
+				}
+			} else {
+				statement.execute("create table " + table + " " + COLUMNS);
+			}
+			statement.execute("insert into " + table + " select i, 'First' || (i % 997), 'Last' || i, "
+					+ "'bench' || i || '@example.com', i % " + companies + ", "
+					+ "case when i % 10 = 0 then 'DELETED' else 'ACTIVE' end "
+					+ "from generate_series(1, " + contacts + ") i");
+			statement.execute("create index on " + table + " (company_id, first_name, last_name, id) "
+					+ "where status = 'ACTIVE'");
+			statement.execute("analyze " + table);
+		}
+	}
+
+}
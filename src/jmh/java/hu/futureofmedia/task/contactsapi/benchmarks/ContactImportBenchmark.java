@@ -0,0 +1,92 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactImportResultDTO;
+import hu.futureofmedia.task.contactsapi.services.ContactImportService;
+
+/**
+ * Egy teljes NDJSON llomny betltsnek ideje. Minden iterci j
+ * e-mail cmekkel s telefonszmokkal dolgozik, hogy ne tkzzn a korbban
+ * betlttt sorokkal.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ContactImportBenchmark {
+
+	private static final int COMPANIES = 100;
+
+	@Param({ "1000000" })
+	private int rows;
+
+	private ConfigurableApplicationContext context;
+	private ContactImportService importService;
+	private Path file;
+	private int iteration;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkData.startApplication("import-benchmark");
+		importService = context.getBean(ContactImportService.class);
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		for (int i = 0; i < COMPANIES; i++) {
+			jdbc.update("insert into company (id, name) values (?, ?)", BenchmarkData.ID_OFFSET + i,
+					"Import company " + i);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void writeFile() throws IOException {
+		file = Files.createTempFile("contacts-import", ".ndjson");
+		long base = (long) iteration++ * rows;
+		try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			for (long i = base; i < base + rows; i++) {
+				writer.write("{\"firstName\":\"First" + i % 997 + "\",\"lastName\":\"Last" + i + "\",\"email\":\""
+						+ "import" + i + "@example.com\",\"phoneNumber\":\"" + BenchmarkData.phoneNumber(i)
+						+ "\",\"companyName\":\"Import company " + i % COMPANIES + "\"}\n");
+			}
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void deleteFile() throws IOException {
+		Files.deleteIfExists(file);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public ContactImportResultDTO importNdjson() throws IOException {
+		try (InputStream body = Files.newInputStream(file)) {
+			return importService.importContacts(body);
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.modelmapper.ModelMapper;
+import org.modelmapper.convention.MatchingStrategies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.Company;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.entities.Status;
+import hu.futureofmedia.task.contactsapi.mappers.ContactPersonMapper;
+import hu.futureofmedia.task.contactsapi.mappers.ContactPersonMapperImpl;
+
+/**
+ * A korbbi, reflexit hasznl ModelMapper alap lekpezs s a generlt
+ * MapStruct lekpezs sszevetse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ContactMappingBenchmark {
+
+	private ModelMapper modelMapper;
+	private ModelMapper strictModelMapper;
+	private ContactPersonMapper contactMapper;
+	private ContactPerson entity;
+	private ContactPersonDTO dto;
+
+	@Setup
+	public void setUp() {
+		modelMapper = new ModelMapper();
+		strictModelMapper = new ModelMapper();
+		strictModelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
+		contactMapper = new ContactPersonMapperImpl();
+		entity = new ContactPerson(1L, "John", "Doe", "john.doe@example.com", "+36301234567",
+				new Company(1L, "Example Ltd."), "A short comment", Status.ACTIVE);
+		entity.setLastModified(new Date());
+		dto = contactMapper.toDetailedView(entity);
+	}
+
+	@Benchmark
+	public SimplifiedContactPersonDTO modelMapperTableView() {
+		SimplifiedContactPersonDTO result = strictModelMapper.map(entity, SimplifiedContactPersonDTO.class);
+		result.setName(entity.getFirstName() + " " + entity.getLastName());
+		result.setCompanyName(entity.getCompany().getName());
+		return result;
+	}
+
+	@Benchmark
+	public SimplifiedContactPersonDTO mapstructTableView() {
+		return contactMapper.toTableView(entity);
+	}
+
+	@Benchmark
+	public ContactPersonDTO modelMapperDetailedView() {
+		ContactPersonDTO result = modelMapper.map(entity, ContactPersonDTO.class);
+		result.setCompanyName(entity.getCompany().getName());
+		return result;
+	}
+
+	@Benchmark
+	public ContactPersonDTO mapstructDetailedView() {
+		return contactMapper.toDetailedView(entity);
+	}
+
+	@Benchmark
+	public ContactPerson modelMapperToEntity() {
+		return modelMapper.map(dto, ContactPerson.class);
+	}
+
+	@Benchmark
+	public ContactPerson mapstructToEntity() {
+		return contactMapper.toEntity(dto);
+	}
+
+}
@@ -0,0 +1,75 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactCursor;
+import hu.futureofmedia.task.contactsapi.dto.CursorPageDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+
+/**
+ * Az oldalszm alap (OFFSET) s a kurzor alap listzs sszevetse
+ * egyre mlyebb oldalakon.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContactPagingBenchmark {
+
+	@Param({ "100000" })
+	private int contacts;
+
+	@Param({ "1", "100", "5000" })
+	private int pageNumber;
+
+	private ConfigurableApplicationContext context;
+	private ContactPersonService contactService;
+	private String cursor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkData.startApplication("paging-benchmark");
+		contactService = context.getBean(ContactPersonService.class);
+		JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+		BenchmarkData.seedContacts(jdbc, contacts);
+		cursor = pageNumber == 1 ? ""
+				: jdbc.query(
+						"select first_name, last_name, id from contact_person where status = 'ACTIVE' "
+								+ "order by first_name, last_name, id limit 1 offset ?",
+						(ResultSetExtractor<String>) rs -> rs.next()
+								? new ContactCursor(rs.getString(1), rs.getString(2), rs.getLong(3)).encode()
+								: "",
+						(pageNumber - 1) * 10 - 1);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<SimplifiedContactPersonDTO> offsetPaging() {
+		return contactService.getActiveContacts(null, null, null, null, null, pageNumber - 1);
+	}
+
+	@Benchmark
+	public CursorPageDTO<SimplifiedContactPersonDTO> keysetPaging() {
+		return contactService.getActiveContactsAfter(null, null, null, null, null, cursor);
+	}
+
+}
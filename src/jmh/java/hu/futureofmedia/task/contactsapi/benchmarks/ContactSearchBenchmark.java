@@ -0,0 +1,77 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.services.ContactSearchIndex;
+
+/**
+ * A memriabeli keresindex sszevetse a {@code LIKE '%x%'} alap SQL
+ * keresssel. Az elgpelt lekrdezsre az SQL nem ad tallatot, az index
+ * igen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContactSearchBenchmark {
+
+	private static final int LIMIT = 20;
+	private static final String LIKE_QUERY = "select c.first_name, c.last_name, c.email, c.phone_number, "
+			+ "co.name from contact_person c left join company co on co.id = c.company_id "
+			+ "where c.status = 'ACTIVE' and (lower(c.first_name) like ? or lower(c.last_name) like ? "
+			+ "or lower(c.email) like ? or lower(co.name) like ?) limit " + LIMIT;
+
+	@Param({ "1000000" })
+	private int contacts;
+
+	@Param({ "k", "kov", "bench4242", "bnech4242" })
+	private String query;
+
+	private ConfigurableApplicationContext context;
+	private ContactSearchIndex searchIndex;
+	private JdbcTemplate jdbc;
+	private String pattern;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkData.startApplication("search-benchmark");
+		jdbc = context.getBean(JdbcTemplate.class);
+		BenchmarkData.seedContacts(jdbc, contacts);
+		searchIndex = context.getBean(ContactSearchIndex.class);
+		searchIndex.rebuild();
+		pattern = "%" + query.toLowerCase() + "%";
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<SimplifiedContactPersonDTO> searchIndex() {
+		return searchIndex.search(query, LIMIT);
+	}
+
+	@Benchmark
+	public List<SimplifiedContactPersonDTO> sqlLike() {
+		return jdbc.query(LIKE_QUERY,
+				(rs, rowNum) -> new SimplifiedContactPersonDTO(rs.getString(1) + " " + rs.getString(2),
+						rs.getString(5), rs.getString(3), rs.getString(4)),
+				pattern, pattern, pattern, pattern);
+	}
+
+}
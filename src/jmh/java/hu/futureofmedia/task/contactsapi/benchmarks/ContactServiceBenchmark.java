@@ -0,0 +1,71 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.exceptions.ContactPersonNotFoundException;
+import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+
+/**
+ * A szolgltats olvassi mveletei H2 adatbzis felett, klnbz
+ * adatmennyisgekkel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ContactServiceBenchmark {
+
+	@Param({ "1000", "100000" })
+	private int contacts;
+
+	private ConfigurableApplicationContext context;
+	private ContactPersonService contactService;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkData.startApplication("service-benchmark");
+		contactService = context.getBean(ContactPersonService.class);
+		BenchmarkData.seedContacts(context.getBean(JdbcTemplate.class), contacts);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<SimplifiedContactPersonDTO> firstPage() {
+		return contactService.getActiveContacts(null, null, null, null, null, 0);
+	}
+
+	@Benchmark
+	public List<SimplifiedContactPersonDTO> filterByEmail() {
+		return contactService.getActiveContacts(null, null, BenchmarkData.email(randomIndex()), null, null, 0);
+	}
+
+	@Benchmark
+	public ContactPersonDTO detailedContact() throws ContactPersonNotFoundException {
+		return contactService.getDetailedContactPerson(BenchmarkData.ID_OFFSET + randomIndex());
+	}
+
+	private int randomIndex() {
+		return ThreadLocalRandom.current().nextInt(contacts);
+	}
+
+}
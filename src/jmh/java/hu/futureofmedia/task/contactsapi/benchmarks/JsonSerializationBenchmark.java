@@ -0,0 +1,65 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.Company;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.entities.Status;
+
+/**
+ * A vlaszok JSON sorostsa: a ltrehozs s mdosts ltal visszaadott
+ * entits, illetve klnbz mret listzsi oldalak.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonSerializationBenchmark {
+
+	@Param({ "10", "1000" })
+	private int listSize;
+
+	private ObjectMapper objectMapper;
+	private ContactPerson contactPerson;
+	private List<SimplifiedContactPersonDTO> contacts;
+
+	@Setup
+	public void setUp() {
+		objectMapper = Jackson2ObjectMapperBuilder.json().build();
+		contactPerson = new ContactPerson(1L, "John", "Doe", "john.doe@example.com", "+36301234567",
+				new Company(1L, "Example Ltd."), "A short comment", Status.ACTIVE);
+		contactPerson.setLastModified(new Date());
+		contacts = new ArrayList<>(listSize);
+		for (int i = 0; i < listSize; i++) {
+			contacts.add(new SimplifiedContactPersonDTO("John Doe " + i, "Benchmark company " + i,
+					BenchmarkData.email(i), BenchmarkData.phoneNumber(i)));
+		}
+	}
+
+	@Benchmark
+	public byte[] contactPerson() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(contactPerson);
+	}
+
+	@Benchmark
+	public byte[] contactList() throws JsonProcessingException {
+		return objectMapper.writeValueAsBytes(contacts);
+	}
+
+}
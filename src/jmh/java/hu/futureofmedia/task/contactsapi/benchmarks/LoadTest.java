@@ -0,0 +1,142 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Terhelses mrs a platform szlas s a virtulis szlas kiszolgls
+ * sszevetsre. Mindkt mdban elindtja az alkalmazst, feltlti az
+ * adatbzist, majd a megadott szm prhuzamos klienssel adott ideig
+ * listz krseket kld; az eredmny az tviteli sebessg s a vlaszid
+ * percentilisei.
+ *
+ * Belltsok (rendszertulajdonsgknt, Gradle-bl {@code -Ploadtest.*}):
+ * {@code loadtest.concurrency}, {@code loadtest.duration} s
+ * {@code loadtest.warmup} (msodperc), {@code loadtest.contacts}.
+ */
+public final class LoadTest {
+
+	private static final int PAGE_SIZE = 10;
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		int concurrency = Integer.getInteger("loadtest.concurrency", 500);
+		Duration duration = Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30));
+		Duration warmup = Duration.ofSeconds(Integer.getInteger("loadtest.warmup", 10));
+		int contacts = Integer.getInteger("loadtest.contacts", 100_000);
+
+		List<String> report = new ArrayList<>();
+		report.add(String.format("%-10s %12s %10s %10s %10s %10s %8s", "mode", "requests/s", "p50 ms", "p99 ms",
+				"max ms", "requests", "errors"));
+		for (boolean virtualThreads : new boolean[] { false, true }) {
+			String mode = virtualThreads ? "virtual" : "platform";
+			try (ConfigurableApplicationContext context = BenchmarkData.startWebApplication("load-test-" + mode,
+					virtualThreads)) {
+				BenchmarkData.seedContacts(context.getBean(JdbcTemplate.class), contacts);
+				String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+				int pages = contacts / PAGE_SIZE;
+				run(baseUrl, pages, concurrency, warmup);
+				Result result = run(baseUrl, pages, concurrency, duration);
+				report.add(result.format(mode));
+			}
+		}
+		report.forEach(System.out::println);
+	}
+
+	private static Result run(String baseUrl, int pages, int concurrency, Duration duration)
+			throws InterruptedException {
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+				.executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+		long deadline = System.nanoTime() + duration.toNanos();
+		AtomicLong errors = new AtomicLong();
+		List<long[]> latencies = new ArrayList<>(concurrency);
+		// A kliensek virtulis szlakon futnak, hogy ne a terhel oldal legyen a szk keresztmetszet.
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int i = 0; i < concurrency; i++) {
+				LatencyRecorder recorder = new LatencyRecorder();
+				clients.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/contacts?page-number="
+								+ (ThreadLocalRandom.current().nextInt(pages) + 1))).GET().build();
+						long start = System.nanoTime();
+						try {
+							HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() != 200) {
+								errors.incrementAndGet();
+							}
+						} catch (Exception e) {
+							errors.incrementAndGet();
+						}
+						recorder.record(System.nanoTime() - start);
+					}
+					synchronized (latencies) {
+						latencies.add(recorder.toArray());
+					}
+				});
+			}
+		}
+		return new Result(latencies, errors.get(), duration);
+	}
+
+	private static final class LatencyRecorder {
+
+		private long[] values = new long[1024];
+		private int size;
+
+		private void record(long nanos) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = nanos;
+		}
+
+		private long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+
+	}
+
+	private static final class Result {
+
+		private final long[] latencies;
+		private final long errors;
+		private final Duration duration;
+
+		private Result(List<long[]> perClient, long errors, Duration duration) {
+			this.latencies = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+			this.errors = errors;
+			this.duration = duration;
+		}
+
+		private String format(String mode) {
+			return String.format("%-10s %12.1f %10.2f %10.2f %10.2f %10d %8d", mode,
+					latencies.length / (double) duration.toSeconds(), percentile(0.50), percentile(0.99),
+					percentile(1.0), latencies.length, errors);
+		}
+
+		private double percentile(double p) {
+			if (latencies.length == 0) {
+				return 0;
+			}
+			int index = (int) Math.ceil(p * latencies.length) - 1;
+			return latencies[Math.max(index, 0)] / 1_000_000.0;
+		}
+
+	}
+
+}
@@ -0,0 +1,69 @@
+package hu.futureofmedia.task.contactsapi.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import hu.futureofmedia.task.contactsapi.services.PhoneNumberValidator;
+
+/**
+ * A telefonszm feldolgozs s ellenrzs kltsge, amit minden ltrehozs s
+ * mdosts kifizet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PhoneNumberBenchmark {
+
+	@Param({ "+36 30 123 4567", "06 1 234 5678", "+44 20 7946 0958" })
+	private String phoneNumber;
+
+	private PhoneNumberUtil phoneNumberUtil;
+	private Phonenumber.PhoneNumber parsed;
+	private PhoneNumberValidator validator;
+
+	@Setup
+	public void setUp() throws NumberParseException {
+		phoneNumberUtil = PhoneNumberUtil.getInstance();
+		parsed = phoneNumberUtil.parse(phoneNumber, "HU");
+		validator = new PhoneNumberValidator("HU", 10000, 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		validator.shutdown();
+	}
+
+	@Benchmark
+	public Phonenumber.PhoneNumber parse() throws NumberParseException {
+		return phoneNumberUtil.parse(phoneNumber, "HU");
+	}
+
+	@Benchmark
+	public boolean isValidNumberForRegion() {
+		return phoneNumberUtil.isValidNumberForRegion(parsed, "HU");
+	}
+
+	@Benchmark
+	public boolean parseAndValidate() throws NumberParseException {
+		return phoneNumberUtil.isValidNumberForRegion(phoneNumberUtil.parse(phoneNumber, "HU"), "HU");
+	}
+
+	@Benchmark
+	public String cachedNormalize() throws NumberParseException {
+		return validator.normalize(phoneNumber);
+	}
+
+}
@@ -1,18 +1,11 @@
 package hu.futureofmedia.task.contactsapi;
 
-import org.modelmapper.ModelMapper;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class ContactsApiApplication {
 	public static void main(String[] args) {
 		SpringApplication.run(ContactsApiApplication.class, args);
 	}
-
-	@Bean
-	public ModelMapper modelMapper() {
-		return new ModelMapper();
-	}
 }
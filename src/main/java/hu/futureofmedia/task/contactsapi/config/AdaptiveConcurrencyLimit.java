@@ -0,0 +1,111 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A prhuzamosan kiszolglt krsek korltja, amely a repository hvsok
+ * mrt ksleltetshez igazodik. Idablakonknt sszeveti az tlagos
+ * ksleltetst a legkisebb megfigyelt (lassan felfel kvet) rtkkel: ha
+ * az tlag a trshatron tl n, a korlt arnyosan cskken, klnben
+ * kihasznltsg esetn lassan n.
+ *
+ * A mintkat cskozott szmllk (LongAdder) gyjtik, az ablak lezrst
+ * egy CAS-t nyer hv vgzi, gy a mrs nem okoz versengst.
+ */
+public class AdaptiveConcurrencyLimit {
+
+	private static final int MIN_SAMPLES = 10;
+	private static final double SMOOTHING = 0.2;
+	private static final double BASELINE_DRIFT = 0.01;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double tolerance;
+	private final long window;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder samples = new LongAdder();
+	private final LongAdder latencySum = new LongAdder();
+	private final AtomicLong nextUpdate;
+	private volatile int limit;
+	private volatile double baseline;
+
+	/**
+	 * @param tolerance a legkisebb ksleltets hnyszorosa szmt mg
+	 *                  terheletlennek
+	 * @param window    a korlt jraszmolsnak gyakorisga
+	 */
+	public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance,
+			Duration window) {
+		this.limit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.tolerance = tolerance;
+		this.window = window.toNanos();
+		this.nextUpdate = new AtomicLong(System.nanoTime() + this.window);
+	}
+
+	public int getLimit() {
+		return limit;
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public boolean tryAcquire() {
+		for (;;) {
+			int current = inFlight.get();
+			if (current >= limit) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	public void onSample(long latencyNanos) {
+		onSample(latencyNanos, System.nanoTime());
+	}
+
+	public void onSample(long latencyNanos, long now) {
+		samples.increment();
+		latencySum.add(latencyNanos);
+		long update = nextUpdate.get();
+		if (now - update >= 0 && nextUpdate.compareAndSet(update, now + window)) {
+			update();
+		}
+	}
+
+	private void update() {
+		long count = samples.sumThenReset();
+		long total = latencySum.sumThenReset();
+		if (count < MIN_SAMPLES) {
+			samples.add(count);
+			latencySum.add(total);
+			return;
+		}
+		double average = (double) total / count;
+		double previous = baseline;
+		double current = previous == 0 || average < previous ? average
+				: previous + (average - previous) * BASELINE_DRIFT;
+		baseline = current;
+		double gradient = Math.max(0.5, Math.min(1.0, tolerance * current / average));
+		int currentLimit = limit;
+		if (gradient == 1.0 && inFlight.get() * 2 < currentLimit) {
+			// Kihasznlatlan korltot nem nvelnk.
+			return;
+		}
+		double target = currentLimit * gradient + Math.sqrt(currentLimit);
+		long smoothed = Math.round(currentLimit * (1 - SMOOTHING) + target * SMOOTHING);
+		limit = (int) Math.max(minLimit, Math.min(maxLimit, smoothed));
+	}
+
+}
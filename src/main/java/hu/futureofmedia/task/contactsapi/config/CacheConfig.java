@@ -0,0 +1,78 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+
+/**
+ * Az alkalmazs gyorsttrai. Mindegyik mretkorltos Caffeine cache,
+ * statisztikval, gy a tallati arny s a kirtsek az actuator metrikk
+ * kztt (cache.gets, cache.evictions) megjelennek.
+ *
+ * A cache interceptor a tranzakcis interceptoron kvl fut, gy a
+ * {@code @CacheEvict} csak a tranzakci lezrsa utn rti a bejegyzst.
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfig {
+
+	public static final String COMPANIES_BY_NAME = "companiesByName";
+	public static final String CONTACT_DETAILS = "contactDetails";
+
+	@Bean
+	public CacheManager cacheManager(
+			@Value("${contacts.cache.companies.maximum-size:1000}") long companiesMaximumSize,
+			@Value("${contacts.cache.contact-details.maximum-size:10000}") long contactDetailsMaximumSize,
+			@Value("${contacts.cache.contact-details.time-to-live:10m}") Duration contactDetailsTimeToLive,
+			@Value("${contacts.cache.contact-details.store:local}") CacheStore contactDetailsStore) {
+		SimpleCacheManager cacheManager = new SimpleCacheManager();
+		cacheManager.setCaches(Arrays.asList(
+				new CaffeineCache(COMPANIES_BY_NAME,
+						Caffeine.newBuilder().maximumSize(companiesMaximumSize).recordStats().build()),
+				contactDetailsStore.create(CONTACT_DETAILS, Caffeine.newBuilder()
+						.maximumSize(contactDetailsMaximumSize).expireAfterWrite(contactDetailsTimeToLive)
+						.recordStats().build(), value -> new ContactPersonDTO((ContactPersonDTO) value))));
+		return cacheManager;
+	}
+
+	/**
+	 * A cache trolsi mdja. A {@code local} md objektumknt trolja az
+	 * rtkeket, de trolskor s tallatkor msolatot ad, gy a hv
+	 * mdostsa nem kerl a cache-be. A {@code serialized} md egy elosztott
+	 * cache helyi megfelelje: az rtkeket bjtokknt trolja, gy minden
+	 * tallat sajt pldnyt ad vissza, s a sorosts kltsge is mrhet.
+	 */
+	public enum CacheStore {
+
+		LOCAL {
+			@Override
+			CaffeineCache create(String name, Cache<Object, Object> cache, UnaryOperator<Object> copier) {
+				return new CopyingCaffeineCache(name, cache, copier);
+			}
+		},
+		SERIALIZED {
+			@Override
+			CaffeineCache create(String name, Cache<Object, Object> cache, UnaryOperator<Object> copier) {
+				return new SerializingCaffeineCache(name, cache);
+			}
+		};
+
+		abstract CaffeineCache create(String name, Cache<Object, Object> cache, UnaryOperator<Object> copier);
+
+	}
+
+}
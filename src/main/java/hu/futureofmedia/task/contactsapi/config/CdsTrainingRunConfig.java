@@ -0,0 +1,24 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * A Class Data Sharing archvum tant futtatsa: az alkalmazs az induls
+ * utn lell, a JVM pedig kilpskor kirja az addig betlttt osztlyokat
+ * (lsd a {@code cdsArchive} Gradle taszkot).
+ */
+@Configuration
+@ConditionalOnProperty(name = "contacts.cds.training-run", havingValue = "true")
+public class CdsTrainingRunConfig {
+
+	@Bean
+	public ApplicationListener<ApplicationReadyEvent> exitAfterStartup() {
+		return event -> System.exit(SpringApplication.exit(event.getApplicationContext()));
+	}
+
+}
@@ -0,0 +1,49 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Az aktulis krs kliensnek utols rsa. A {@link ReadYourWritesFilter}
+ * kti a krs szlhoz a kliens stijbl, a {@link ReplicaRoutingDataSource}
+ * ez alapjn kldi az olvasst az elsdleges adatbzisra, s egy rs
+ * lezrsakor ezen keresztl frissti a stit. Krsen kvli (httr)
+ * rsokhoz nincs kliens, gy azok senki olvasst nem terelik el.
+ */
+public final class ClientWrites {
+
+	private static final ThreadLocal<ClientWrites> CURRENT = new ThreadLocal<>();
+
+	private final LongConsumer onWrite;
+	private volatile long lastWriteMillis;
+
+	/**
+	 * @param lastWriteMillis a kliens utols rsnak ideje, 0 ha nem ismert
+	 * @param onWrite         egy rs lezrsakor hvdik az idvel
+	 */
+	public ClientWrites(long lastWriteMillis, LongConsumer onWrite) {
+		this.lastWriteMillis = lastWriteMillis;
+		this.onWrite = onWrite;
+	}
+
+	public static ClientWrites current() {
+		return CURRENT.get();
+	}
+
+	public static void bind(ClientWrites client) {
+		CURRENT.set(client);
+	}
+
+	public static void unbind() {
+		CURRENT.remove();
+	}
+
+	public long getLastWriteMillis() {
+		return lastWriteMillis;
+	}
+
+	void written(long millis) {
+		lastWriteMillis = millis;
+		onWrite.accept(millis);
+	}
+
+}
@@ -0,0 +1,36 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.util.function.UnaryOperator;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caffeine cache, amely trolskor s minden tallatkor msolatot kszt, gy
+ * a hvk nem mdosthatjk sem a trolt, sem egyms pldnyt.
+ */
+class CopyingCaffeineCache extends CaffeineCache {
+
+	private final UnaryOperator<Object> copier;
+
+	CopyingCaffeineCache(String name, Cache<Object, Object> cache, UnaryOperator<Object> copier) {
+		super(name, cache, true);
+		this.copier = copier;
+	}
+
+	@Override
+	protected Object toStoreValue(Object userValue) {
+		return super.toStoreValue(copy(userValue));
+	}
+
+	@Override
+	protected Object fromStoreValue(Object storeValue) {
+		return copy(super.fromStoreValue(storeValue));
+	}
+
+	private Object copy(Object value) {
+		return value != null ? copier.apply(value) : null;
+	}
+
+}
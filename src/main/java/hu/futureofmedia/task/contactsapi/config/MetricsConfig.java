@@ -0,0 +1,25 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Mrszmok. A vgpontokat (http.server.requests), a Spring Data
+ * repository hvsokat (spring.data.repository.invocations), a Hibernate
+ * statisztikkat s a HikariCP poolt a Spring Boot mri; a szolgltatsok
+ * s a natv lekrdezsek {@code @Timed} annotcival, a {@code contacts.}
+ * kezdet idmrkbe kerlnek. Prometheus formtumban az
+ * {@code /actuator/prometheus} vgponton rhetek el.
+ */
+@Configuration
+public class MetricsConfig {
+
+	@Bean
+	public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+		return new TimedAspect(meterRegistry);
+	}
+
+}
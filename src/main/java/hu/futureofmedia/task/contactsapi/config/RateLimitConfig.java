@@ -0,0 +1,87 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Terhelskorltozs a {@code /contacts} s {@code /companies} vgpontok
+ * eltt. A prhuzamossgi korlt a Spring Data repository hvsok
+ * ksleltetshez igazodik. A korltok s az elutastsok a
+ * {@code contacts.limiter} kezdet mrszmok kztt jelennek meg.
+ */
+@Configuration
+@Profile("!reactive")
+@ConditionalOnProperty(name = "contacts.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+	@Bean
+	public AdaptiveConcurrencyLimit adaptiveConcurrencyLimit(
+			@Value("${contacts.concurrency.initial-limit:20}") int initialLimit,
+			@Value("${contacts.concurrency.min-limit:4}") int minLimit,
+			@Value("${contacts.concurrency.max-limit:200}") int maxLimit,
+			@Value("${contacts.concurrency.tolerance:2.0}") double tolerance,
+			@Value("${contacts.concurrency.window:1s}") Duration window) {
+		return new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, window);
+	}
+
+	@Bean
+	public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(AdaptiveConcurrencyLimit concurrencyLimit,
+			MeterRegistry meterRegistry,
+			@Value("${contacts.rate-limit.client.rate:50}") double clientRate,
+			@Value("${contacts.rate-limit.client.burst:100}") int clientBurst,
+			@Value("${contacts.rate-limit.endpoint.rate:2000}") double endpointRate,
+			@Value("${contacts.rate-limit.endpoint.burst:4000}") int endpointBurst,
+			@Value("${contacts.rate-limit.endpoint.stripes:0}") int endpointStripes,
+			@Value("${contacts.rate-limit.client.key-header:}") String clientKeyHeader) {
+		RateLimitFilter filter = new RateLimitFilter(clientRate, clientBurst, endpointRate, endpointBurst,
+				endpointStripes > 0 ? endpointStripes : Runtime.getRuntime().availableProcessors(), clientKeyHeader,
+				concurrencyLimit);
+		FunctionCounter.builder("contacts.limiter.rejected", filter, RateLimitFilter::getRateLimited)
+				.tag("reason", "rate").register(meterRegistry);
+		FunctionCounter.builder("contacts.limiter.rejected", filter, RateLimitFilter::getShed)
+				.tag("reason", "concurrency").register(meterRegistry);
+		Gauge.builder("contacts.limiter.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+				.register(meterRegistry);
+		Gauge.builder("contacts.limiter.concurrency.in-flight", concurrencyLimit,
+				AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+		FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns("/contacts", "/contacts/*", "/companies/*");
+		return registration;
+	}
+
+	/**
+	 * A repository hvsok idejt a prhuzamossgi korlt kapja meg.
+	 */
+	@Bean
+	public static BeanPostProcessor repositoryLatencyListener(
+			ObjectProvider<AdaptiveConcurrencyLimit> concurrencyLimit) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				if (bean instanceof RepositoryFactoryBeanSupport) {
+					RepositoryMethodInvocationListener listener = invocation -> concurrencyLimit.getObject()
+							.onSample(invocation.getDuration(TimeUnit.NANOSECONDS));
+					((RepositoryFactoryBeanSupport<?, ?, ?>) bean)
+							.addRepositoryFactoryCustomizer(factory -> factory.addInvocationListener(listener));
+				}
+				return bean;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,187 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Terhelskorltozs a kapcsolattart vgpontok eltt, mg az adatbzis
+ * elrse eltt. Kliensenknt (tvoli cm, vagy a megadott fejlc els
+ * rtke) s vgpontonknt (metdus s tvonal, az azonostk helyett {id})
+ * token bucket korltozza a krsek
+ * temt, tllpskor 429-es vlasz rkezik Retry-After fejlccel. Az
+ * tengedett krsek szmt a {@link AdaptiveConcurrencyLimit} korltozza,
+ * teltettsg esetn 503-as vlasz rkezik.
+ *
+ * A bucketek mretkorltos, a nem hasznltakat kirt Caffeine cache-ben
+ * vannak. A vgpontok bucketjeit minden kliens hasznlja, ezrt ezek
+ * cskozottak ({@link StripedTokenBucket}), a szmllk pedig
+ * {@link LongAdder}-ek, gy a korltoz nem vlik szk keresztmetszett.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+	private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+	private static final int MAX_BUCKETS = 100_000;
+	private static final Duration BUCKET_IDLE_TIMEOUT = Duration.ofMinutes(5);
+	private static final long SHED_RETRY_AFTER_SECONDS = 1;
+
+	private final Cache<String, TokenBucket> clientBuckets = newBucketCache();
+	private final Cache<String, StripedTokenBucket> endpointBuckets = newBucketCache();
+	private final double clientRate;
+	private final int clientBurst;
+	private final double endpointRate;
+	private final int endpointBurst;
+	private final int endpointStripes;
+	private final String clientKeyHeader;
+	private final AdaptiveConcurrencyLimit concurrencyLimit;
+	private final LongAdder rateLimited = new LongAdder();
+	private final LongAdder shed = new LongAdder();
+
+	public RateLimitFilter(double clientRate, int clientBurst, double endpointRate, int endpointBurst,
+			AdaptiveConcurrencyLimit concurrencyLimit) {
+		this(clientRate, clientBurst, endpointRate, endpointBurst, Runtime.getRuntime().availableProcessors(), null,
+				concurrencyLimit);
+	}
+
+	/**
+	 * @param endpointStripes a vgpontonknti bucket cskjainak szma
+	 * @param clientKeyHeader a klienst azonost fejlc (pl. X-Forwarded-For
+	 *                        vagy API kulcs), res vagy null esetn a tvoli
+	 *                        cm
+	 */
+	public RateLimitFilter(double clientRate, int clientBurst, double endpointRate, int endpointBurst,
+			int endpointStripes, String clientKeyHeader, AdaptiveConcurrencyLimit concurrencyLimit) {
+		this.clientRate = clientRate;
+		this.clientBurst = clientBurst;
+		this.endpointRate = endpointRate;
+		this.endpointBurst = endpointBurst;
+		this.endpointStripes = endpointStripes;
+		this.clientKeyHeader = clientKeyHeader == null || clientKeyHeader.isEmpty() ? null : clientKeyHeader;
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	public long getRateLimited() {
+		return rateLimited.sum();
+	}
+
+	public long getShed() {
+		return shed.sum();
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		long now = System.nanoTime();
+		long wait = clientBuckets.get(clientKey(request), key -> new TokenBucket(clientRate, clientBurst, now))
+				.tryAcquire(now);
+		if (wait == 0) {
+			wait = endpointBuckets.get(endpoint(request),
+					key -> new StripedTokenBucket(endpointRate, endpointBurst, endpointStripes, now)).tryAcquire(now);
+		}
+		if (wait > 0) {
+			rateLimited.increment();
+			reject(response, HttpStatus.TOO_MANY_REQUESTS, TimeUnit.NANOSECONDS.toSeconds(wait) + 1,
+					"Too many requests.");
+			return;
+		}
+		if (!concurrencyLimit.tryAcquire()) {
+			shed.increment();
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, SHED_RETRY_AFTER_SECONDS, "The service is overloaded.");
+			return;
+		}
+		boolean async = false;
+		try {
+			chain.doFilter(request, response);
+			if (request.isAsyncStarted()) {
+				request.getAsyncContext().addListener(new ReleaseOnCompletion());
+				async = true;
+			}
+		} finally {
+			if (!async) {
+				concurrencyLimit.release();
+			}
+		}
+	}
+
+	private String clientKey(HttpServletRequest request) {
+		if (clientKeyHeader != null) {
+			String value = request.getHeader(clientKeyHeader);
+			if (value != null) {
+				int comma = value.indexOf(',');
+				String first = (comma < 0 ? value : value.substring(0, comma)).trim();
+				if (!first.isEmpty()) {
+					return first;
+				}
+			}
+		}
+		return request.getRemoteAddr();
+	}
+
+	static String endpoint(HttpServletRequest request) {
+		return request.getMethod() + " " + ID_SEGMENT.matcher(request.getRequestURI()).replaceAll("/{id}");
+	}
+
+	private static void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds,
+			String message) throws IOException {
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+		response.sendError(status.value(), message);
+	}
+
+	private static <T> Cache<String, T> newBucketCache() {
+		return Caffeine.newBuilder().maximumSize(MAX_BUCKETS).expireAfterAccess(BUCKET_IDLE_TIMEOUT).build();
+	}
+
+	/**
+	 * Aszinkron (pl. folyamatos export) vlasznl a hely a vlasz lezrsakor
+	 * szabadul fel.
+	 */
+	private class ReleaseOnCompletion implements AsyncListener {
+
+		private final AtomicBoolean released = new AtomicBoolean();
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			release();
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+			event.getAsyncContext().addListener(this);
+		}
+
+		private void release() {
+			if (released.compareAndSet(false, true)) {
+				concurrencyLimit.release();
+			}
+		}
+
+	}
+
+}
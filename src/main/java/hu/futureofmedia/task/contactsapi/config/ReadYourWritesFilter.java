@@ -0,0 +1,63 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * A kliens utols rsnak ideje stiben. rs utn a sti lejrtig az
+ * adott kliens olvassai az elsdleges adatbzisra mennek, a tbbi kliens
+ * tovbbra is a replikra.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	static final String COOKIE = "contacts-last-write";
+
+	private final int maxAgeSeconds;
+
+	public ReadYourWritesFilter(Duration readYourWrites) {
+		this.maxAgeSeconds = (int) Math.max(1, (readYourWrites.toMillis() + 999) / 1000);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		ClientWrites.bind(new ClientWrites(lastWrite(request), millis -> {
+			if (!response.isCommitted()) {
+				Cookie cookie = new Cookie(COOKIE, Long.toString(millis));
+				cookie.setPath("/");
+				cookie.setHttpOnly(true);
+				cookie.setMaxAge(maxAgeSeconds);
+				response.addCookie(cookie);
+			}
+		}));
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			ClientWrites.unbind();
+		}
+	}
+
+	private static long lastWrite(HttpServletRequest request) {
+		if (request.getCookies() != null) {
+			for (Cookie cookie : request.getCookies()) {
+				if (COOKIE.equals(cookie.getName())) {
+					try {
+						return Long.parseLong(cookie.getValue());
+					} catch (NumberFormatException e) {
+						return 0;
+					}
+				}
+			}
+		}
+		return 0;
+	}
+
+}
@@ -0,0 +1,69 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Olvassi replika hasznlata, ha a {@code contacts.datasource.replica.url}
+ * meg van adva. Az elsdleges adatbzis a szoksos
+ * {@code spring.datasource.*} belltsokbl jn ltre.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "contacts.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+	@Bean(destroyMethod = "close")
+	public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties,
+			@Value("${contacts.datasource.replica.url}") String replicaUrl,
+			@Value("${contacts.datasource.replica.username:}") String replicaUsername,
+			@Value("${contacts.datasource.replica.password:}") String replicaPassword,
+			@Value("${contacts.datasource.replica.health-check-interval:5s}") Duration healthCheckInterval,
+			@Value("${contacts.datasource.replica.read-your-writes:2s}") Duration readYourWrites,
+			@Value("${spring.datasource.hikari.maximum-pool-size:10}") int maximumPoolSize,
+			@Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeout) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		primary.setPoolName("primary");
+		primary.setMaximumPoolSize(maximumPoolSize);
+		primary.setConnectionTimeout(connectionTimeout);
+		HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class).url(replicaUrl)
+				.username(replicaUsername).password(replicaPassword).build();
+		replica.setPoolName("replica");
+		replica.setMaximumPoolSize(maximumPoolSize);
+		replica.setConnectionTimeout(connectionTimeout);
+		replica.setReadOnly(true);
+		return new ReplicaRoutingDataSource(primary, replica, healthCheckInterval, readYourWrites);
+	}
+
+	/**
+	 * Az r kliens kvetse stivel, hogy a sajt rsa utni olvassai az
+	 * elsdleges adatbzisra kerljenek.
+	 */
+	@Bean
+	@ConditionalOnWebApplication(type = Type.SERVLET)
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+			@Value("${contacts.datasource.replica.read-your-writes:2s}") Duration readYourWrites) {
+		return new FilterRegistrationBean<>(new ReadYourWritesFilter(readYourWrites));
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+}
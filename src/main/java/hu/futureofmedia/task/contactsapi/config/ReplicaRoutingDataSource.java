@@ -0,0 +1,146 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * A csak olvas ({@code @Transactional(readOnly = true)}) tranzakcikat a
+ * replikra, minden mst az elsdleges adatbzisra irnyt DataSource. A
+ * tranzakci jellege csak a kapcsolat tnyleges lekrsekor ismert, ezrt
+ * egy {@code LazyConnectionDataSourceProxy} mgtt kell hasznlni.
+ *
+ * Ha a replika nem rhet el (sikertelen kapcsolds vagy idszakos
+ * ellenrzs), az olvassok is az elsdleges adatbzisra kerlnek, amg az
+ * ellenrzs jra rendben nem tallja. Egy kliens rsnak lezrsa utn a
+ * megadott ideig annak a kliensnek az olvassai is az elsdlegesre mennek
+ * (lsd {@link ClientWrites}), gy a replika ksse alatt is ltja a sajt
+ * mdostst; a tbbi kliens s a httrben fut rsok ezt nem rintik.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+	enum Target {
+		PRIMARY, REPLICA
+	}
+
+	private final DataSource primary;
+	private final DataSource replica;
+	private final long readYourWritesMillis;
+	private final ScheduledExecutorService healthCheck;
+	private volatile boolean replicaHealthy = true;
+
+	/**
+	 * @param healthCheckInterval a replika ellenrzsnek gyakorisga, nulla
+	 *                            esetn csak a sikertelen kapcsolds jelzi a
+	 *                            hibt
+	 * @param readYourWrites      rs utn az r kliens ennyi ideig olvas az
+	 *                            elsdlegesrl, nulla esetn kikapcsolva
+	 */
+	public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration healthCheckInterval,
+			Duration readYourWrites) {
+		this.primary = primary;
+		this.replica = replica;
+		this.readYourWritesMillis = readYourWrites.toMillis();
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(Target.PRIMARY, primary);
+		targets.put(Target.REPLICA, replica);
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+		if (healthCheckInterval.isZero()) {
+			this.healthCheck = null;
+		} else {
+			this.healthCheck = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "replica-health-check");
+				thread.setDaemon(true);
+				return thread;
+			});
+			healthCheck.scheduleWithFixedDelay(this::checkReplica, healthCheckInterval.toMillis(),
+					healthCheckInterval.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	List<DataSource> targets() {
+		return Arrays.asList(primary, replica);
+	}
+
+	public boolean isReplicaHealthy() {
+		return replicaHealthy;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && replicaHealthy
+				&& !wroteRecently(ClientWrites.current())) {
+			return Target.REPLICA;
+		}
+		return Target.PRIMARY;
+	}
+
+	private boolean wroteRecently(ClientWrites client) {
+		return client != null && System.currentTimeMillis() - client.getLastWriteMillis() < readYourWritesMillis;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		if (determineCurrentLookupKey() == Target.REPLICA) {
+			try {
+				return replica.getConnection();
+			} catch (SQLException e) {
+				replicaHealthy = false;
+			}
+		} else if (readYourWritesMillis > 0 && ClientWrites.current() != null
+				&& TransactionSynchronizationManager.isSynchronizationActive()
+				&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			ClientWrites client = ClientWrites.current();
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					client.written(System.currentTimeMillis());
+				}
+			});
+		}
+		return primary.getConnection();
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (healthCheck != null) {
+			healthCheck.shutdownNow();
+		}
+		if (primary instanceof Closeable) {
+			((Closeable) primary).close();
+		}
+		if (replica instanceof Closeable) {
+			((Closeable) replica).close();
+		}
+	}
+
+	/**
+	 * A replika elrhetsgnek ellenrzse, az idszakos ellenrzs is ezt
+	 * hvja.
+	 */
+	public void checkReplica() {
+		try (Connection connection = replica.getConnection()) {
+			replicaHealthy = connection.isValid(1);
+		} catch (SQLException e) {
+			replicaHealthy = false;
+		}
+	}
+
+}
@@ -0,0 +1,31 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.util.SerializationUtils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * Caffeine cache, amely az rtkeket Java sorostssal bjttmbknt trolja,
+ * ahogy egy elosztott cache tenn.
+ */
+class SerializingCaffeineCache extends CaffeineCache {
+
+	SerializingCaffeineCache(String name, Cache<Object, Object> cache) {
+		super(name, cache, true);
+	}
+
+	@Override
+	protected Object toStoreValue(Object userValue) {
+		return SerializationUtils.serialize(super.toStoreValue(userValue));
+	}
+
+	@Override
+	protected Object fromStoreValue(Object storeValue) {
+		if (storeValue == null) {
+			return null;
+		}
+		return super.fromStoreValue(SerializationUtils.deserialize((byte[]) storeValue));
+	}
+
+}
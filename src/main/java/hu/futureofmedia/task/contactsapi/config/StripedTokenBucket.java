@@ -0,0 +1,40 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sok szlrl egyszerre hasznlt token bucket, a rtt s a lketet
+ * egyenlen elosztva tbb {@link TokenBucket} kztt, hogy a CAS ne egyetlen
+ * szmlln versengjen. Egy krs egy vletlen cskot, elutastskor mg a
+ * kvetkezt prblja, gy a korlt kzelben is csak ritkn utast el
+ * feleslegesen.
+ */
+class StripedTokenBucket {
+
+	private final TokenBucket[] stripes;
+
+	/**
+	 * @param stripes a cskok kvnt szma, legfeljebb a lket mretig
+	 */
+	StripedTokenBucket(double ratePerSecond, int burst, int stripes, long now) {
+		int count = Math.max(1, Math.min(stripes, burst));
+		this.stripes = new TokenBucket[count];
+		for (int i = 0; i < count; i++) {
+			this.stripes[i] = new TokenBucket(ratePerSecond / count, burst / count, now);
+		}
+	}
+
+	/**
+	 * @return 0, ha a krs tengedhet, klnben a vrakozsi id
+	 *         nanoszekundumban
+	 */
+	long tryAcquire(long now) {
+		int first = stripes.length == 1 ? 0 : ThreadLocalRandom.current().nextInt(stripes.length);
+		long wait = stripes[first].tryAcquire(now);
+		if (wait > 0 && stripes.length > 1) {
+			wait = Math.min(wait, stripes[(first + 1) % stripes.length].tryAcquire(now));
+		}
+		return wait;
+	}
+
+}
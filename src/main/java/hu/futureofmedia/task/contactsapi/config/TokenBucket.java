@@ -0,0 +1,45 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Zrols nlkli token bucket (GCRA). Az llapot egyetlen idpont, a
+ * kvetkez krs elmleti rkezsi ideje, amelyet krsenknt egy CAS
+ * lptet elre.
+ */
+class TokenBucket {
+
+	private final long interval;
+	private final long tolerance;
+	private final AtomicLong theoreticalArrival;
+
+	/**
+	 * @param ratePerSecond a tartsan tengedett krsek szma msodpercenknt
+	 * @param burst         az egyszerre tengedhet krsek szma
+	 */
+	TokenBucket(double ratePerSecond, int burst, long now) {
+		this.interval = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+		this.tolerance = interval * burst;
+		this.theoreticalArrival = new AtomicLong(now);
+	}
+
+	/**
+	 * @return 0, ha a krs tengedhet, klnben a vrakozsi id
+	 *         nanoszekundumban
+	 */
+	long tryAcquire(long now) {
+		for (;;) {
+			long arrival = theoreticalArrival.get();
+			long next = Math.max(arrival, now) + interval;
+			long wait = next - now - tolerance;
+			if (wait > 0) {
+				return wait;
+			}
+			if (theoreticalArrival.compareAndSet(arrival, next)) {
+				return 0;
+			}
+		}
+	}
+
+}
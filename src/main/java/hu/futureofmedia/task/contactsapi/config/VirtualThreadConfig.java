@@ -0,0 +1,72 @@
+package hu.futureofmedia.task.contactsapi.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Opcionlis futtatsi md, amelyben a Tomcat minden krst sajt virtulis
+ * szlon szolgl ki, s az aszinkron feldolgozs (pl. a streamelt export) is
+ * virtulis szlakon fut. A blokkol JDBC hvsok gy nem ktnek le
+ * platform szlat; a prhuzamossgot a connection pool mrete korltozza,
+ * ezrt a pool vrakozsi ideje ebben a mdban rvidebb
+ * ({@code contacts.virtual-threads.connection-timeout}).
+ *
+ * A H2 a munkamenet mveleteit {@code synchronized} blokkokban vgzi, gy a
+ * H2-t hasznl virtulis szlak a lekrdezs idejre lefoglaljk a hordoz
+ * szlat. A virtulis szlas md PostgreSQL-lel les, H2-vel csak
+ * fejlesztsre val.
+ *
+ * Bekapcsols: {@code contacts.virtual-threads.enabled=true}.
+ */
+@Configuration
+@ConditionalOnProperty(name = "contacts.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+
+	@Bean(name = { TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor" })
+	public AsyncTaskExecutor applicationTaskExecutor() {
+		return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+	}
+
+	/**
+	 * A Hikari poolok vrakozsi ideje, a repliks bellts pooljaira is.
+	 */
+	@Bean
+	public static BeanPostProcessor virtualThreadConnectionTimeout(
+			@Value("${contacts.virtual-threads.connection-timeout:5s}") Duration connectionTimeout) {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof HikariDataSource) {
+					((HikariDataSource) bean).setConnectionTimeout(connectionTimeout.toMillis());
+				} else if (bean instanceof ReplicaRoutingDataSource) {
+					for (DataSource target : ((ReplicaRoutingDataSource) bean).targets()) {
+						if (target instanceof HikariDataSource) {
+							((HikariDataSource) target).setConnectionTimeout(connectionTimeout.toMillis());
+						}
+					}
+				}
+				return bean;
+			}
+		};
+	}
+
+}
@@ -1,36 +1,71 @@
 package hu.futureofmedia.task.contactsapi.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.google.i18n.phonenumbers.NumberParseException;
 
+import hu.futureofmedia.task.contactsapi.dto.ContactChangeDTO;
+import hu.futureofmedia.task.contactsapi.dto.ContactImportResultDTO;
 import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.CursorPageDTO;
 import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
 import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
 import hu.futureofmedia.task.contactsapi.exceptions.ContactPersonNotFoundException;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonVersion;
+import hu.futureofmedia.task.contactsapi.services.ContactChangeLog;
+import hu.futureofmedia.task.contactsapi.services.ContactExportService;
+import hu.futureofmedia.task.contactsapi.services.ContactField;
+import hu.futureofmedia.task.contactsapi.services.ContactImportService;
 import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+import hu.futureofmedia.task.contactsapi.services.ExportFormat;
 
 /**
  * @author faludi.peter A Kapcsolattart mveletekrt felelels osztly
  */
 @RestController
+@Profile("!reactive")
 public class ContactPersonController {
 
+	static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
 	@Autowired
 	private ContactPersonService contactService;
 
+	@Autowired
+	@Lazy
+	private ContactImportService importService;
+
+	@Autowired
+	@Lazy
+	private ContactExportService exportService;
+
+	@Autowired
+	private ContactChangeLog changeLog;
+
 	/**
 	 * Az aktv kapcsolattartkat listz fggvny.Az albbi paramterek
 	 * opcionlisak, szrsre vannak hasznlva, csak az aktv sttusz
@@ -45,7 +80,16 @@ public class ContactPersonController {
 	 * @param phoneNumber a kapcsolattart telefonszma
 	 * @param comment     a kapcsolattarthoz tartoz megjegyzs
 	 * @param pageNumber  aktulis, megtekintett oldal
-	 * @return oldalszm szerint 10 aktv sttusz kapcsolattart listja
+	 * @param cursor      az elz oldal X-Next-Cursor fejlcben kapott token,
+	 *                    res rtkkel az els oldal krhet le. Megadsa esetn
+	 *                    az oldalszm helyett a token utni 10 kapcsolattart
+	 *                    kerl visszaadsra, gy a mly oldalak lekrse sem
+	 *                    lassul.
+	 * @return oldalszm szerint 10 aktv sttusz kapcsolattart listja. Az
+	 *         ETag az oldal sorainak ujjlenyomata, vltozatlan oldal esetn az
+	 *         If-None-Match fejlcre 304-es vlasz rkezik. Az ujjlenyomat csak
+	 *         If-None-Match esetn kerl kln lekrdezsre, egybknt a
+	 *         betlttt oldalbl szmoldik.
 	 */
 	@GetMapping("/contacts")
 	public ResponseEntity<List<SimplifiedContactPersonDTO>> listContacts(
@@ -54,10 +98,176 @@ public class ContactPersonController {
 			@RequestParam(value = "email", required = false) String email,
 			@RequestParam(value = "phone-number", required = false) String phoneNumber,
 			@RequestParam(value = "comment", required = false) String comment,
-			@RequestParam(value = "page-number") int pageNumber) {
-		List<SimplifiedContactPersonDTO> result = contactService.getActiveContacts(firstName, lastName, email,
-				phoneNumber, comment, pageNumber - 1);
-		return new ResponseEntity<>(result, HttpStatus.OK);
+			@RequestParam(value = "page-number", required = false) Integer pageNumber,
+			@RequestParam(value = "cursor", required = false) String cursor, WebRequest request) {
+		if (cursor != null) {
+			try {
+				if (hasIfNoneMatch(request) && request.checkNotModified(eTag(contactService
+						.getActiveContactsAfterFingerprint(firstName, lastName, email, phoneNumber, comment, cursor)))) {
+					return null;
+				}
+				CursorPageDTO<SimplifiedContactPersonDTO> page = contactService.getActiveContactsAfter(firstName,
+						lastName, email, phoneNumber, comment, cursor);
+				HttpHeaders headers = new HttpHeaders();
+				headers.setETag(eTag(page.getFingerprint()));
+				if (page.getNextCursor() != null) {
+					headers.set(NEXT_CURSOR_HEADER, page.getNextCursor());
+				}
+				return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+			} catch (IllegalArgumentException e) {
+				throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+			}
+		}
+		if (pageNumber == null) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Either page-number or cursor is required.");
+		}
+		if (hasIfNoneMatch(request) && request.checkNotModified(eTag(contactService
+				.getActiveContactsFingerprint(firstName, lastName, email, phoneNumber, comment, pageNumber - 1)))) {
+			return null;
+		}
+		CursorPageDTO<SimplifiedContactPersonDTO> page = contactService.getActiveContactsPage(firstName, lastName,
+				email, phoneNumber, comment, pageNumber - 1);
+		return ResponseEntity.ok().eTag(eTag(page.getFingerprint())).body(page.getContent());
+	}
+
+	/**
+	 * Egy cg aktv kapcsolattartinak listja, a {@code /contacts} listzssal
+	 * megegyez szrkkel, sorrenddel s ETag kezelssel. PostgreSQL-en a
+	 * lekrdezs csak a cg partcijt olvassa.
+	 * 
+	 * @param companyId  a cg azonostja
+	 * @param pageNumber aktulis, megtekintett oldal
+	 * @return oldalszm szerint 10 aktv sttusz kapcsolattart listja
+	 */
+	@GetMapping("/companies/{companyId}/contacts")
+	public ResponseEntity<List<SimplifiedContactPersonDTO>> listContactsOfCompany(
+			@PathVariable(name = "companyId") Long companyId,
+			@RequestParam(value = "first-name", required = false) String firstName,
+			@RequestParam(value = "last-name", required = false) String lastName,
+			@RequestParam(value = "email", required = false) String email,
+			@RequestParam(value = "phone-number", required = false) String phoneNumber,
+			@RequestParam(value = "comment", required = false) String comment,
+			@RequestParam(value = "page-number", defaultValue = "1") int pageNumber, WebRequest request) {
+		if (pageNumber < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The page number must be at least 1.");
+		}
+		if (hasIfNoneMatch(request) && request.checkNotModified(eTag(contactService
+				.getActiveContactsOfCompanyFingerprint(companyId, firstName, lastName, email, phoneNumber, comment,
+						pageNumber - 1)))) {
+			return null;
+		}
+		CursorPageDTO<SimplifiedContactPersonDTO> page = contactService.getActiveContactsOfCompanyPage(companyId,
+				firstName, lastName, email, phoneNumber, comment, pageNumber - 1);
+		return ResponseEntity.ok().eTag(eTag(page.getFingerprint())).body(page.getContent());
+	}
+
+	/**
+	 * Teljes szveges keress egy cg aktv kapcsolattartinak megjegyzsben,
+	 * relevancia szerint rendezve, oldalanknt tz.
+	 * 
+	 * @param companyId  a cg azonostja
+	 * @param query      a keresett szavak
+	 * @param pageNumber aktulis, megtekintett oldal
+	 * @return a tallatok listja
+	 */
+	@GetMapping("/companies/{companyId}/contacts/search/comments")
+	public ResponseEntity<List<SimplifiedContactPersonDTO>> searchContactsOfCompanyByComment(
+			@PathVariable(name = "companyId") Long companyId, @RequestParam(value = "q") String query,
+			@RequestParam(value = "page-number", defaultValue = "1") int pageNumber) {
+		if (pageNumber < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The page number must be at least 1.");
+		}
+		return new ResponseEntity<>(contactService.searchContactsByComment(query, companyId, pageNumber - 1),
+				HttpStatus.OK);
+	}
+
+	/**
+	 * Gpels kzbeni keress az aktv kapcsolattartk nevben, e-mail cmben s
+	 * cgnevben. A szavak eltagknt is illeszkednek, s kisebb elgpelst is
+	 * trnek. Az eredmny memriabeli indexbl rkezik.
+	 * 
+	 * @param query a keresett szavak
+	 * @param limit a tallatok maximlis szma (legfeljebb 100)
+	 * @return a tallatok, elbb az eltag szerintiek
+	 */
+	@GetMapping("/contacts/search")
+	public ResponseEntity<List<SimplifiedContactPersonDTO>> searchContacts(@RequestParam(value = "q") String query,
+			@RequestParam(value = "limit", defaultValue = "20") int limit) {
+		return new ResponseEntity<>(contactService.searchContacts(query, limit), HttpStatus.OK);
+	}
+
+	/**
+	 * Teljes szveges keress az aktv kapcsolattartk megjegyzsben. A
+	 * tallatok relevancia szerint rendezettek, oldalanknt tz.
+	 * 
+	 * @param query      a keresett szavak
+	 * @param pageNumber aktulis, megtekintett oldal
+	 * @return a tallatok listja
+	 */
+	@GetMapping("/contacts/search/comments")
+	public ResponseEntity<List<SimplifiedContactPersonDTO>> searchContactsByComment(
+			@RequestParam(value = "q") String query,
+			@RequestParam(value = "page-number", defaultValue = "1") int pageNumber) {
+		if (pageNumber < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The page number must be at least 1.");
+		}
+		return new ResponseEntity<>(contactService.searchContactsByComment(query, pageNumber - 1), HttpStatus.OK);
+	}
+
+	/**
+	 * A kapcsolattartk ltrehozsa, mdostsa s trlse a megadott sorszm
+	 * utn, sorszm szerint nvekv sorrendben. A fogyaszt a legutbb kapott
+	 * sorszmmal folytathatja, gy a teljes lista jraolvassa nlkl
+	 * szinkronizlhat. A vltozsok a rgzts utn rvid ksssel jelennek
+	 * meg.
+	 * 
+	 * @param since az utols feldolgozott vltozs sorszma, kezdetben 0
+	 * @param limit a vltozsok maximlis szma (legfeljebb 1000)
+	 * @return a vltozsok listja
+	 */
+	@GetMapping("/contacts/changes")
+	public ResponseEntity<List<ContactChangeDTO>> listChanges(
+			@RequestParam(value = "since", defaultValue = "0") long since,
+			@RequestParam(value = "limit", defaultValue = "100") int limit) {
+		if (limit < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The limit must be at least 1.");
+		}
+		return new ResponseEntity<>(changeLog.getChangesSince(since, limit), HttpStatus.OK);
+	}
+
+	/**
+	 * Az sszes aktv kapcsolattart exportja, a listzssal megegyez opcionlis
+	 * szrkkel. A vlasz folyamatosan, soronknt kerl kirsra, gy mrete nem
+	 * korltozott. Aszinkron krsknt fut, ezrt az idkorltot a
+	 * {@code spring.mvc.async.request-timeout} adja, alaprtelmezetten nincs.
+	 * 
+	 * @param firstName   a kapcsolattart keresztneve
+	 * @param lastName    a kapcsolattart vezetkneve
+	 * @param email       a kapcsolattart emailcme
+	 * @param phoneNumber a kapcsolattart telefonszma
+	 * @param comment     a kapcsolattarthoz tartoz megjegyzs
+	 * @param format      ndjson (alaprtelmezett) vagy csv
+	 * @return a kapcsolattartk listja a krt formtumban
+	 */
+	@GetMapping("/contacts/export")
+	public ResponseEntity<StreamingResponseBody> exportContacts(
+			@RequestParam(value = "first-name", required = false) String firstName,
+			@RequestParam(value = "last-name", required = false) String lastName,
+			@RequestParam(value = "email", required = false) String email,
+			@RequestParam(value = "phone-number", required = false) String phoneNumber,
+			@RequestParam(value = "comment", required = false) String comment,
+			@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+		ExportFormat exportFormat;
+		try {
+			exportFormat = ExportFormat.fromParameter(format);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		StreamingResponseBody body = out -> exportService.exportActiveContacts(exportFormat, firstName, lastName,
+				email, phoneNumber, comment, out);
+		return ResponseEntity.ok().contentType(exportFormat.getMediaType())
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=contacts." + exportFormat.getExtension())
+				.body(body);
 	}
 
 	/**
@@ -65,14 +275,17 @@ public class ContactPersonController {
 	 * kapcsolattartt s a sttuszt trltre lltja.
 	 * 
 	 * @param id A kapcsolattart azonostja.
-	 * @return A kapcsolat tart adataival tr vissza.
+	 * @return res vlasz (204). Ha a kapcsolattart nem ltezik vagy mr
+	 *         trlt, 404-es hibakd. Korbban 200-as vlasz rkezett a
+	 *         kapcsolattart adataival, lsd a README API vltozsok rszt.
 	 */
 	@DeleteMapping("/contacts/{id}")
-	public ResponseEntity<ContactPerson> deleteContactById(@PathVariable(name = "id") Long id) {
+	public ResponseEntity<Void> deleteContactById(@PathVariable(name = "id") Long id) {
 		try {
-			return new ResponseEntity<>(contactService.deleteContactPersonById(id), HttpStatus.OK);
+			contactService.deleteContactPersonById(id);
+			return new ResponseEntity<>(HttpStatus.NO_CONTENT);
 		} catch (ContactPersonNotFoundException e) {
-			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
 		} catch (Exception e) {
 			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
 		}
@@ -89,13 +302,26 @@ public class ContactPersonController {
 	 *            mez; Cg, kivlaszts legrdl menvel; E-mail cm, szveges
 	 *            beviteli mez; Telefonszm, szveges beviteli mez; Megjegyzs,
 	 *            szveges beviteli mez, tbbsoros
-	 * @return Az j kapcsolattart adatai.
+	 * @param ifMatch opcionlis If-Match fejlc, a rszletes nzet ETag-je. Ha a
+	 *                kapcsolattart azta mdosult, 412-es hibakd.
+	 * @param fields  opcionlis, vesszvel elvlasztott meznevek, megadsa
+	 *                esetn a vlasz csak ezeket tartalmazza
+	 * @return Az j kapcsolattart adatai, az j ETag-gel.
 	 */
 	@PostMapping("/contacts/{id}")
-	public ResponseEntity<ContactPerson> deleteContactById(@PathVariable(name = "id") Long id,
-			@RequestBody ContactPersonDTO dto) {
+	public ResponseEntity<?> deleteContactById(@PathVariable(name = "id") Long id,
+			@RequestBody ContactPersonDTO dto,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+			@RequestParam(value = "fields", required = false) String fields) {
+		Long expectedVersion = expectedVersion(id, ifMatch);
+		Set<ContactField> selected = contactFields(fields);
 		try {
-			return new ResponseEntity<>(contactService.updateContactPerson(id, dto), HttpStatus.OK);
+			ContactPerson entity = contactService.updateContactPerson(id, dto, expectedVersion);
+			return ResponseEntity.ok().eTag(eTag(entity.getId() + "-" + entity.getVersion()))
+					.body(selected != null ? ContactField.select(entity, selected) : entity);
+		} catch (ObjectOptimisticLockingFailureException e) {
+			throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+					"The contact person was modified by someone else.");
 		} catch (ContactPersonNotFoundException e) {
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
 		} catch (Exception e) {
@@ -110,13 +336,37 @@ public class ContactPersonController {
 	 * adatok:Vezetknv,Keresztnv,Cg neve,E-mail
 	 * cm,Telefonszm,Megjegyzs,Ltrehozs ideje,Utols mdosts ideje
 	 * 
-	 * @param id A kapcsolattart azonostja.
-	 * @return A kapcsolattart adatai
+	 * @param id     A kapcsolattart azonostja.
+	 * @param fields opcionlis, vesszvel elvlasztott meznevek (pl.
+	 *               firstName,email). Megadsa esetn csak ezek a mezk kerlnek
+	 *               lekrdezsre s a vlaszba.
+	 * @return A kapcsolattart adatai, ETag (azonost s verzi) s
+	 *         Last-Modified fejlccel. Ha az If-None-Match vagy az
+	 *         If-Modified-Since alapjn nem vltozott, 304-es vlasz trzs nlkl.
+	 *         A teljes nzet verzija a cache-elt adatokbl jn, gy cache
+	 *         tallatkor nincs lekrdezs.
 	 */
 	@GetMapping("/contacts/{id}")
-	public ResponseEntity<ContactPersonDTO> findDetailedContact(@PathVariable(name = "id") Long id) {
+	public ResponseEntity<?> findDetailedContact(@PathVariable(name = "id") Long id,
+			@RequestParam(value = "fields", required = false) String fields, WebRequest request) {
+		Set<ContactField> selected = contactFields(fields);
 		try {
-			return new ResponseEntity<>(contactService.getDetailedContactPerson(id), HttpStatus.OK);
+			if (selected == null) {
+				ContactPersonDTO contact = contactService.getDetailedContactPerson(id);
+				Date lastModified = contact.getLastModified() != null ? contact.getLastModified()
+						: contact.getCreatedAt();
+				if (request.checkNotModified(eTag(contact.getId() + "-" + contact.getVersion()),
+						lastModified != null ? lastModified.getTime() : -1)) {
+					return null;
+				}
+				return new ResponseEntity<>(contact, HttpStatus.OK);
+			}
+			ContactPersonVersion version = contactService.getContactPersonVersion(id);
+			long lastModified = version.getLastModified() != null ? version.getLastModified().getTime() : -1;
+			if (request.checkNotModified(eTag(version.getId() + "-" + version.getVersion()), lastModified)) {
+				return null;
+			}
+			return new ResponseEntity<>(contactService.getContactPersonFields(id, selected), HttpStatus.OK);
 		} catch (ContactPersonNotFoundException e) {
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
 		} catch (Exception e) {
@@ -133,14 +383,19 @@ public class ContactPersonController {
 	 *            mez; Cg, kivlaszts legrdl menvel; E-mail cm, szveges
 	 *            beviteli mez; Telefonszm, szveges beviteli mez; Megjegyzs,
 	 *            szveges beviteli mez, tbbsoros
+	 * @param fields opcionlis, vesszvel elvlasztott meznevek, megadsa
+	 *               esetn a vlasz csak ezeket tartalmazza
 	 * @return Az j kapcsolattart adatai.
 	 */
 	@PostMapping("/contacts")
-	public ResponseEntity<ContactPerson> createNewContactPerson(@RequestBody ContactPersonDTO dto) {
+	public ResponseEntity<?> createNewContactPerson(@RequestBody ContactPersonDTO dto,
+			@RequestParam(value = "fields", required = false) String fields) {
+		Set<ContactField> selected = contactFields(fields);
 		ContactPerson entity;
 		try {
 			entity = contactService.createContactPerson(dto);
-			return new ResponseEntity<>(entity, HttpStatus.OK);
+			return new ResponseEntity<>(selected != null ? ContactField.select(entity, selected) : entity,
+					HttpStatus.OK);
 		} catch (NumberParseException e) {
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage());
 		} catch (Exception e) {
@@ -149,4 +404,66 @@ public class ContactPersonController {
 
 	}
 
+	/**
+	 * Kapcsolattartk tmeges betltse. A trzs lehet JSON tmb vagy soronknt
+	 * egy JSON objektum (NDJSON), a sorok tartalma megegyezik a ltrehozsnl
+	 * hasznlt objektummal. A trzs folyamatosan kerl feldolgozsra, a hibs sorok
+	 * kihagysra kerlnek.
+	 * 
+	 * @param body a betltend kapcsolattartk
+	 * @return a betlttt s a hibs sorok szma, illetve a hibs sorok sorszma
+	 *         s a hiba oka
+	 */
+	@PostMapping(value = "/contacts/import", consumes = { MediaType.APPLICATION_JSON_VALUE,
+			MediaType.APPLICATION_NDJSON_VALUE })
+	public ResponseEntity<ContactImportResultDTO> importContacts(InputStream body) {
+		try {
+			return new ResponseEntity<>(importService.importContacts(body), HttpStatus.OK);
+		} catch (IOException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}
+
+	private static Set<ContactField> contactFields(String fields) {
+		if (fields == null) {
+			return null;
+		}
+		try {
+			return ContactField.fromParameter(fields);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+	}
+
+	private static boolean hasIfNoneMatch(WebRequest request) {
+		return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null;
+	}
+
+	private static String eTag(String value) {
+		return "\"" + value + "\"";
+	}
+
+	/**
+	 * Az If-Match fejlcben kapott "azonost-verzi" ETag-bl a verzi. A "*"
+	 * vagy hinyz fejlc esetn null, ms kapcsolattarthoz tartoz vagy gyenge
+	 * ETag esetn 412-es hibakd.
+	 */
+	private static Long expectedVersion(Long id, String ifMatch) {
+		if (ifMatch == null || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String prefix = "\"" + id + "-";
+		for (String tag : ifMatch.split(",")) {
+			tag = tag.trim();
+			if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+				try {
+					return Long.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+				} catch (NumberFormatException e) {
+					break;
+				}
+			}
+		}
+		throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "The If-Match header does not match.");
+	}
+
 }
@@ -0,0 +1,139 @@
+package hu.futureofmedia.task.contactsapi.controllers;
+
+import java.io.UncheckedIOException;
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.repositories.ActiveContactSql;
+import hu.futureofmedia.task.contactsapi.repositories.ReactiveContactRepository;
+import hu.futureofmedia.task.contactsapi.services.ContactExportService;
+import hu.futureofmedia.task.contactsapi.services.ExportFormat;
+import hu.futureofmedia.task.contactsapi.services.PhoneNumberValidator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A listzs, a rszletes nzet s az export nem blokkol (WebFlux + R2DBC)
+ * vltozata, a {@code reactive} profilban a {@link ContactPersonController}
+ * helyett. Az rsi mveletek s a keressek ebben a mdban nem rhetek el.
+ */
+@RestController
+@Profile("reactive")
+public class ReactiveContactPersonController {
+
+	private static final int PAGE_SIZE = 10;
+	private static final String NOT_FOUND_MESSAGE = "Contact person was not found with this ID";
+
+	@Autowired
+	private ReactiveContactRepository contactRepository;
+
+	@Autowired
+	private PhoneNumberValidator phoneNumberValidator;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Az aktv kapcsolattartk listja oldalanknt tz, nv szerint rendezve,
+	 * a blokkol vltozattal megegyez szrkkel. Kurzor alap lapozs ebben a
+	 * mdban nincs.
+	 *
+	 * @param pageNumber aktulis, megtekintett oldal
+	 * @return az oldal kapcsolattarti, olvass kzben kirva
+	 */
+	@GetMapping("/contacts")
+	public Flux<SimplifiedContactPersonDTO> listContacts(
+			@RequestParam(value = "first-name", required = false) String firstName,
+			@RequestParam(value = "last-name", required = false) String lastName,
+			@RequestParam(value = "email", required = false) String email,
+			@RequestParam(value = "phone-number", required = false) String phoneNumber,
+			@RequestParam(value = "comment", required = false) String comment,
+			@RequestParam(value = "page-number", required = false) Integer pageNumber) {
+		if (pageNumber == null || pageNumber < 1) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A page-number of at least 1 is required.");
+		}
+		return contactRepository.findActive(ActiveContactSql.page(firstName, lastName, email,
+				phoneNumberValidator.normalizeIfValid(phoneNumber), comment, pageNumber - 1, PAGE_SIZE));
+	}
+
+	/**
+	 * Az aktv kapcsolattartk exportja ndjson vagy csv formtumban. A sorok a
+	 * kliens olvassi sebessghez igazodva kerlnek lekrdezsre.
+	 *
+	 * @param format ndjson (alaprtelmezett) vagy csv
+	 * @return a kapcsolattartk listja a krt formtumban
+	 */
+	@GetMapping("/contacts/export")
+	public ResponseEntity<Flux<String>> exportContacts(
+			@RequestParam(value = "first-name", required = false) String firstName,
+			@RequestParam(value = "last-name", required = false) String lastName,
+			@RequestParam(value = "email", required = false) String email,
+			@RequestParam(value = "phone-number", required = false) String phoneNumber,
+			@RequestParam(value = "comment", required = false) String comment,
+			@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+		ExportFormat exportFormat;
+		try {
+			exportFormat = ExportFormat.fromParameter(format);
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+		}
+		Flux<SimplifiedContactPersonDTO> contacts = contactRepository.findActive(ActiveContactSql
+				.matching(firstName, lastName, email, phoneNumberValidator.normalizeIfValid(phoneNumber), comment));
+		Flux<String> body = exportFormat == ExportFormat.CSV
+				? Flux.just(ContactExportService.CSV_HEADER + "\r\n")
+						.concatWith(contacts.map(ContactExportService::csvRow))
+				: contacts.map(this::ndjsonRow);
+		return ResponseEntity.ok().contentType(exportFormat.getMediaType())
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=contacts." + exportFormat.getExtension())
+				.body(body);
+	}
+
+	/**
+	 * A kapcsolattart rszletes adatai, ETag (azonost s verzi) s
+	 * Last-Modified fejlccel; vltozatlan adat esetn 304-es vlasz.
+	 *
+	 * @param id A kapcsolattart azonostja.
+	 * @return A kapcsolattart adatai, ha nem ltezik, 404-es hibakd.
+	 */
+	@GetMapping("/contacts/{id}")
+	public Mono<ResponseEntity<ContactPersonDTO>> findDetailedContact(@PathVariable(name = "id") Long id,
+			ServerWebExchange exchange) {
+		return contactRepository.findById(id)
+				.switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, NOT_FOUND_MESSAGE)))
+				.flatMap(contact -> {
+					Instant lastModified = contact.getLastModified() != null
+							? contact.getLastModified().toInstant()
+							: Instant.MIN;
+					if (exchange.checkNotModified("\"" + contact.getId() + "-" + contact.getVersion() + "\"",
+							lastModified)) {
+						return Mono.empty();
+					}
+					return Mono.just(ResponseEntity.ok(contact.getContact()));
+				});
+	}
+
+	private String ndjsonRow(SimplifiedContactPersonDTO contact) {
+		try {
+			return objectMapper.writeValueAsString(contact) + "\n";
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
@@ -0,0 +1,29 @@
+package hu.futureofmedia.task.contactsapi.dto;
+
+import java.util.Date;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactChangeDTO {
+
+	private Long sequence;
+	private Long contactId;
+	private ChangeType type;
+	private Long contactVersion;
+	private Date changedAt;
+
+	/**
+	 * A kapcsolattart adatai a vltozs utn; trlsnl null. Fknt, nem
+	 * nyers JSON szvegknt, gy CBOR s Smile formtumban is kirhat.
+	 */
+	private JsonNode contact;
+
+}
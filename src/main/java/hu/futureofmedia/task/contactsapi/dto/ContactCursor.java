@@ -0,0 +1,39 @@
+package hu.futureofmedia.task.contactsapi.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A kapcsolattartk listzsnl hasznlt folytatsi pozci. A rendezsi
+ * kulcs (keresztnv, vezetknv, azonost) utols ltott rtkt trolja, a
+ * kliens fel tltszatlan tokenknt kerl kiadsra.
+ */
+@Data
+@AllArgsConstructor
+public class ContactCursor {
+
+	private String firstName;
+	private String lastName;
+	private Long id;
+
+	public String encode() {
+		String json = new JSONArray().put(firstName).put(lastName).put(id).toString();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static ContactCursor decode(String token) {
+		try {
+			JSONArray values = new JSONArray(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+			return new ContactCursor(values.getString(0), values.getString(1), values.getLong(2));
+		} catch (IllegalArgumentException | JSONException e) {
+			throw new IllegalArgumentException("The cursor is invalid.", e);
+		}
+	}
+
+}
@@ -0,0 +1,15 @@
+package hu.futureofmedia.task.contactsapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactImportErrorDTO {
+
+	private long row;
+	private String message;
+
+}
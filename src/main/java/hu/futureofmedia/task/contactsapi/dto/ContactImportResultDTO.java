@@ -0,0 +1,15 @@
+package hu.futureofmedia.task.contactsapi.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Data;
+
+@Data
+public class ContactImportResultDTO {
+
+	private long imported;
+	private long failed;
+	private List<ContactImportErrorDTO> errors = new ArrayList<>();
+
+}
@@ -1,16 +1,31 @@
 package hu.futureofmedia.task.contactsapi.dto;
 
+import java.io.Serializable;
 import java.util.Date;
 
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
 
 
 @Data
-public class ContactPersonDTO {
+public class ContactPersonDTO implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Az azonost s a verzi a rszletes nzet ETag-jhez, a cache-elt
+	 * adatokkal egytt; a JSON-ban nem jelennek meg.
+	 */
+	@JsonIgnore
+	private Long id;
+
+	@JsonIgnore
+	private Long version;
 
 	@NotEmpty(message = "Last name must be not empty!")
 	private String firstName;
@@ -30,4 +45,23 @@ public class ContactPersonDTO {
 	@NotNull
 	private String companyName;
 
+	public ContactPersonDTO() {
+	}
+
+	/**
+	 * Msolat, a dtumokat is belertve.
+	 */
+	public ContactPersonDTO(ContactPersonDTO other) {
+		this.id = other.id;
+		this.version = other.version;
+		this.firstName = other.firstName;
+		this.lastName = other.lastName;
+		this.email = other.email;
+		this.phoneNumber = other.phoneNumber;
+		this.comment = other.comment;
+		this.createdAt = other.createdAt != null ? new Date(other.createdAt.getTime()) : null;
+		this.lastModified = other.lastModified != null ? new Date(other.lastModified.getTime()) : null;
+		this.companyName = other.companyName;
+	}
+
 }
@@ -0,0 +1,22 @@
+package hu.futureofmedia.task.contactsapi.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageDTO<T> {
+
+	private List<T> content;
+	private String nextCursor;
+
+	/**
+	 * Az oldal sorainak ujjlenyomata, az ETag rtke.
+	 */
+	private String fingerprint;
+
+}
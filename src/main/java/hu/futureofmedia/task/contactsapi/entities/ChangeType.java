@@ -0,0 +1,5 @@
+package hu.futureofmedia.task.contactsapi.entities;
+
+public enum ChangeType {
+	CREATE, UPDATE, DELETE;
+}
@@ -2,13 +2,14 @@ package hu.futureofmedia.task.contactsapi.entities;
 
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-@Table(name = "Company")
+@Table(name = "Company", indexes = @Index(name = "idx_company_name", columnList = "name"))
 @Entity
 @Data
 @AllArgsConstructor
@@ -0,0 +1,46 @@
+package hu.futureofmedia.task.contactsapi.entities;
+
+import java.util.Date;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A kapcsolattartk vltozsnapljnak egy bejegyzse. A tblba csak
+ * hozzfzs trtnik; az azonost a vltozsok sorszma, a bers
+ * sorrendjben folyamatosan n.
+ */
+@Table(name = "contact_change")
+@Entity
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContactChange {
+
+	@Id
+	private Long id;
+
+	@Column(nullable = false)
+	private Long contactId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false)
+	private ChangeType type;
+
+	private Long contactVersion;
+
+	@Column(nullable = false)
+	private Date changedAt;
+
+	@Column(columnDefinition = "TEXT")
+	private String payload;
+
+}
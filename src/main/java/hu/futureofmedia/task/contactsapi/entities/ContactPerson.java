@@ -7,24 +7,39 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
-import javax.persistence.OneToOne;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotEmpty;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+@Table(indexes = { @Index(name = "idx_contact_person_name", columnList = "firstName, lastName, id"),
+		@Index(name = "idx_contact_person_company_name", columnList = "company_id, firstName, lastName, id") })
 @Entity
+@DynamicUpdate
 @Data
 @NoArgsConstructor
 @Builder
 @AllArgsConstructor
 public class ContactPerson {
 
-	@GeneratedValue
+	public static final String ID_SEQUENCE = "contact_person_seq";
+	public static final int ID_ALLOCATION_SIZE = 50;
+
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+	@SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
 	@Id
 	private Long id;
 	
@@ -43,7 +58,8 @@ public class ContactPerson {
 	@Column(unique = true)
 	private String phoneNumber;
 
-	@OneToOne
+	@ManyToOne
+	@JoinColumn(name = "company_id", nullable = false)
 	private Company company;
 
 	@Column(columnDefinition = "TEXT")
@@ -55,6 +71,9 @@ public class ContactPerson {
 	private Date createdAt;
 	private Date lastModified;
 
+	@Version
+	private Long version;
+
 	public ContactPerson(Long id, String firstName, String lastName, String email, String phoneNumber, Company company,
 			String comment, Status status) {
 		super();
@@ -0,0 +1,43 @@
+package hu.futureofmedia.task.contactsapi.mappers;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+
+/**
+ * A kapcsolattart entits s a DTO-k kztti lekpezs. Az implementcit a
+ * MapStruct fordtsi idben generlja, gy reflexi nlkl, egyszer getter s
+ * setter hvsokkal dolgozik.
+ */
+@Mapper(componentModel = "spring")
+public interface ContactPersonMapper {
+
+	@Mapping(target = "companyName", source = "company.name")
+	ContactPersonDTO toDetailedView(ContactPerson entity);
+
+	@Mapping(target = "name", expression = "java(entity.getFirstName() + \" \" + entity.getLastName())")
+	@Mapping(target = "companyName", source = "company.name")
+	SimplifiedContactPersonDTO toTableView(ContactPerson entity);
+
+	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "company", ignore = true)
+	@Mapping(target = "status", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	ContactPerson toEntity(ContactPersonDTO dto);
+
+	/**
+	 * A DTO szerkeszthet mezinek tmsolsa egy mr betlttt entitsba.
+	 */
+	@Mapping(target = "id", ignore = true)
+	@Mapping(target = "company", ignore = true)
+	@Mapping(target = "status", ignore = true)
+	@Mapping(target = "version", ignore = true)
+	@Mapping(target = "createdAt", ignore = true)
+	@Mapping(target = "lastModified", ignore = true)
+	void updateEntity(ContactPersonDTO dto, @MappingTarget ContactPerson entity);
+
+}
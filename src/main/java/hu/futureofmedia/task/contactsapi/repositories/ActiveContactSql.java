@@ -0,0 +1,69 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Az aktv kapcsolattartk natv SQL lekrdezse a listzsval megegyez,
+ * opcionlis szrkkel. Azokhoz az olvassokhoz kszlt, amelyek entitsok
+ * ltrehozsa nlkl, soronknt dolgozzk fel az eredmnyt. A paramterek
+ * nvvel ({@code :name}) szerepelnek.
+ */
+public final class ActiveContactSql {
+
+	private static final String SELECT = "SELECT c.id, c.first_name, c.last_name, c.email, c.phone_number, "
+			+ "co.name AS company_name FROM contact_person c LEFT JOIN company co ON co.id = c.company_id "
+			+ "WHERE c.status = 'ACTIVE'";
+
+	private final StringBuilder sql = new StringBuilder(SELECT);
+	private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+	private ActiveContactSql() {
+	}
+
+	public static ActiveContactSql matching(String firstName, String lastName, String email, String phoneNumber,
+			String comment) {
+		ActiveContactSql query = filtered(firstName, lastName, email, phoneNumber, comment);
+		query.sql.append(" ORDER BY c.id");
+		return query;
+	}
+
+	/**
+	 * A listzs egy oldala: nv, majd azonost szerint rendezve.
+	 */
+	public static ActiveContactSql page(String firstName, String lastName, String email, String phoneNumber,
+			String comment, int pageNumber, int pageSize) {
+		ActiveContactSql query = filtered(firstName, lastName, email, phoneNumber, comment);
+		query.sql.append(" ORDER BY c.first_name, c.last_name, c.id LIMIT :limit OFFSET :offset");
+		query.parameters.put("limit", pageSize);
+		query.parameters.put("offset", (long) pageNumber * pageSize);
+		return query;
+	}
+
+	public String getSql() {
+		return sql.toString();
+	}
+
+	public Map<String, Object> getParameters() {
+		return parameters;
+	}
+
+	private static ActiveContactSql filtered(String firstName, String lastName, String email, String phoneNumber,
+			String comment) {
+		ActiveContactSql query = new ActiveContactSql();
+		query.columnEquals("c.first_name", "firstName", firstName);
+		query.columnEquals("c.last_name", "lastName", lastName);
+		query.columnEquals("c.email", "email", email);
+		query.columnEquals("c.phone_number", "phoneNumber", phoneNumber);
+		query.columnEquals("c.comment", "comment", comment);
+		return query;
+	}
+
+	private void columnEquals(String column, String parameter, String value) {
+		if (value != null) {
+			sql.append(" AND ").append(column).append(" = :").append(parameter);
+			parameters.put(parameter, value);
+		}
+	}
+
+}
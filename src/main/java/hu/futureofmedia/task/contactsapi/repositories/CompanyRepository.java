@@ -1,10 +1,14 @@
 package hu.futureofmedia.task.contactsapi.repositories;
 
+import hu.futureofmedia.task.contactsapi.config.CacheConfig;
 import hu.futureofmedia.task.contactsapi.entities.Company;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,6 +16,37 @@ public interface CompanyRepository extends CrudRepository<Company, Long> {
 
 	List<Company> findAll();
 
+	@Cacheable(CacheConfig.COMPANIES_BY_NAME)
 	Company findByName(String name);
 
+	List<Company> findByNameIn(Collection<String> names);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	<S extends Company> S save(S entity);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	<S extends Company> Iterable<S> saveAll(Iterable<S> entities);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	void deleteById(Long id);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	void delete(Company entity);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	void deleteAllById(Iterable<? extends Long> ids);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	void deleteAll(Iterable<? extends Company> entities);
+
+	@Override
+	@CacheEvict(cacheNames = CacheConfig.COMPANIES_BY_NAME, allEntries = true)
+	void deleteAll();
+
 }
@@ -0,0 +1,14 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.Repository;
+
+import hu.futureofmedia.task.contactsapi.entities.ContactChange;
+
+public interface ContactChangeRepository extends Repository<ContactChange, Long> {
+
+	List<ContactChange> findByIdGreaterThanOrderById(Long since, Pageable page);
+
+}
@@ -0,0 +1,20 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.List;
+
+/**
+ * Teljes szveges keress az aktv kapcsolattartk megjegyzsben. A szveg
+ * rskor kerl tokenizlsra s indexelsre, a keress csak az indexet
+ * olvassa.
+ */
+public interface ContactCommentSearchRepository {
+
+	/**
+	 * A tallatok azonosti relevancia szerint cskken, azon bell azonost
+	 * szerinti sorrendben.
+	 *
+	 * @param companyId ha meg van adva, csak a cg kapcsolattarti kztt keres
+	 */
+	List<Long> findActiveIdsByComment(String query, Long companyId, long offset, int limit);
+
+}
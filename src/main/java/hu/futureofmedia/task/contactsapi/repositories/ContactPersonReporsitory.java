@@ -1,38 +1,33 @@
 package hu.futureofmedia.task.contactsapi.repositories;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
-import javax.validation.constraints.NotEmpty;
-
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
-import hu.futureofmedia.task.contactsapi.entities.Status;
 
 @Repository
-public interface ContactPersonReporsitory extends JpaRepository<ContactPerson, Long> {
+public interface ContactPersonReporsitory extends JpaRepository<ContactPerson, Long>,
+		JpaSpecificationExecutor<ContactPerson>, ContactPersonSliceRepository {
 	
 	List<ContactPerson> findAll();
 	
-	@Query("SELECT c from ContactPerson c where c.status = 'ACTIVE' " +
-            "AND (:firstName is null or c.firstName = :firstName) " +
-            "AND (:lastName is null or c.lastName = :lastName) " +
-            "AND (:email is null or c.email = :email) " +
-            "AND (:phoneNumber is null or c.phoneNumber = :phoneNumber) " +
-            "AND (:comment is null or c.comment = :comment)")
-    Page<ContactPerson> findAllActive(
-            @Param("firstName") String firstName,
-            @Param("lastName") String lastName,
-            @Param("email") String email,
-            @Param("phoneNumber") String phoneNumber,
-            @Param("comment") String description,
-            Pageable pageable);
-	
 	ContactPerson getById(Long id);
+
+	@Modifying
+	@Query("UPDATE ContactPerson c SET c.status = 'DELETED', c.lastModified = :now, c.version = c.version + 1 "
+			+ "WHERE c.id = :id AND c.status <> 'DELETED'")
+	int softDeleteById(@Param("id") Long id, @Param("now") Date now);
+
+	@Query("SELECT c.id AS id, c.version AS version, COALESCE(c.lastModified, c.createdAt) AS lastModified "
+			+ "FROM ContactPerson c WHERE c.id = :id")
+	Optional<ContactPersonVersion> findVersionById(@Param("id") Long id);
 	
 }
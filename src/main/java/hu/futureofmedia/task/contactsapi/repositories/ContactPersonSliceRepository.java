@@ -0,0 +1,34 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+
+public interface ContactPersonSliceRepository {
+
+	/**
+	 * A felttelnek megfelel kapcsolattartk egy szelete. A {@code Page} alap
+	 * lekrdezsekkel ellenttben nem futtat kln COUNT lekrdezst, a cget
+	 * pedig ugyanabban az utastsban tlti be.
+	 */
+	List<ContactPerson> findSlice(Specification<ContactPerson> spec, Pageable pageable);
+
+	/**
+	 * Ugyanaz a szelet, mint a {@link #findSlice} esetn, de csak a sorok
+	 * azonostja, verzija s a cg neve kerl lekrdezsre, entitsok nlkl.
+	 * A lista ujjlenyomatnak kiszmtshoz hasznlt.
+	 */
+	List<Object[]> findSliceVersions(Specification<ContactPerson> spec, Pageable pageable);
+
+	/**
+	 * Egy kapcsolattart megadott attribtumai, a megadott sorrendben. Csak a
+	 * krt oszlopok kerlnek lekrdezsre, a cg csak a {@code company.}
+	 * kezdet attribtumok esetn kapcsoldik.
+	 */
+	Optional<Object[]> findAttributesById(Long id, List<String> attributes);
+
+}
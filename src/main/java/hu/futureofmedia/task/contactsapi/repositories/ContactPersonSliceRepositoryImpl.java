@@ -0,0 +1,89 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import hu.futureofmedia.task.contactsapi.entities.Company;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+
+public class ContactPersonSliceRepositoryImpl implements ContactPersonSliceRepository {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<ContactPerson> findSlice(Specification<ContactPerson> spec, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<ContactPerson> query = cb.createQuery(ContactPerson.class);
+		Root<ContactPerson> root = query.from(ContactPerson.class);
+		root.fetch("company", JoinType.LEFT);
+		return getSlice(query, root, spec, pageable);
+	}
+
+	@Override
+	public List<Object[]> findSliceVersions(Specification<ContactPerson> spec, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+		Root<ContactPerson> root = query.from(ContactPerson.class);
+		Join<ContactPerson, Company> company = root.join("company", JoinType.LEFT);
+		query.multiselect(root.get("id"), root.get("version"), company.get("name"));
+		return getSlice(query, root, spec, pageable);
+	}
+
+	@Override
+	public Optional<Object[]> findAttributesById(Long id, List<String> attributes) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<ContactPerson> root = query.from(ContactPerson.class);
+		Map<String, Join<?, ?>> joins = new HashMap<>();
+		List<Selection<?>> selections = new ArrayList<>();
+		for (String attribute : attributes) {
+			int dot = attribute.indexOf('.');
+			if (dot < 0) {
+				selections.add(root.get(attribute));
+			} else {
+				String association = attribute.substring(0, dot);
+				selections.add(joins.computeIfAbsent(association, name -> root.join(name, JoinType.LEFT))
+						.get(attribute.substring(dot + 1)));
+			}
+		}
+		query.multiselect(selections).where(cb.equal(root.get("id"), id));
+		return entityManager.createQuery(query).getResultList().stream().findFirst().map(Tuple::toArray);
+	}
+
+	private <T> List<T> getSlice(CriteriaQuery<T> query, Root<ContactPerson> root, Specification<ContactPerson> spec,
+			Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		Predicate predicate = spec.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+		TypedQuery<T> typedQuery = entityManager.createQuery(query);
+		if (pageable.isPaged()) {
+			typedQuery.setFirstResult((int) pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize());
+		}
+		return typedQuery.getResultList();
+	}
+
+}
@@ -0,0 +1,64 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.Collection;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactCursor;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.entities.Status;
+
+/**
+ * A kapcsolattartk listzshoz hasznlt felttelek. Csak a tnylegesen
+ * megadott szrk kerlnek a lekrdezsbe, gy minden szrkombincihoz sajt,
+ * indexet hasznlni tud SQL utasts tartozik.
+ */
+public final class ContactPersonSpecifications {
+
+	private ContactPersonSpecifications() {
+	}
+
+	public static Specification<ContactPerson> isActive() {
+		return (root, query, cb) -> cb.equal(root.get("status"), Status.ACTIVE);
+	}
+
+	public static Specification<ContactPerson> activeMatching(String firstName, String lastName, String email,
+			String phoneNumber, String comment) {
+		return Specification.where(isActive())
+				.and(attributeEquals("firstName", firstName))
+				.and(attributeEquals("lastName", lastName))
+				.and(attributeEquals("email", email))
+				.and(attributeEquals("phoneNumber", phoneNumber))
+				.and(attributeEquals("comment", comment));
+	}
+
+	public static Specification<ContactPerson> after(ContactCursor cursor) {
+		return (root, query, cb) -> cb.or(
+				cb.greaterThan(root.<String>get("firstName"), cursor.getFirstName()),
+				cb.and(cb.equal(root.get("firstName"), cursor.getFirstName()),
+						cb.greaterThan(root.<String>get("lastName"), cursor.getLastName())),
+				cb.and(cb.equal(root.get("firstName"), cursor.getFirstName()),
+						cb.equal(root.get("lastName"), cursor.getLastName()),
+						cb.greaterThan(root.<Long>get("id"), cursor.getId())));
+	}
+
+	/**
+	 * A cg kapcsolattarti. A felttel kzvetlenl a company_id oszlopra
+	 * kerl, gy PostgreSQL-en a lekrdezs egyetlen partcit olvas.
+	 */
+	public static Specification<ContactPerson> hasCompany(Long companyId) {
+		return (root, query, cb) -> cb.equal(root.get("company").get("id"), companyId);
+	}
+
+	public static Specification<ContactPerson> idIn(Collection<Long> ids) {
+		return (root, query, cb) -> root.get("id").in(ids);
+	}
+
+	private static Specification<ContactPerson> attributeEquals(String attribute, String value) {
+		if (value == null) {
+			return null;
+		}
+		return (root, query, cb) -> cb.equal(root.get(attribute), value);
+	}
+
+}
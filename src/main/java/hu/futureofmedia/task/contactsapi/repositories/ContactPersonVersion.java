@@ -0,0 +1,17 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.Date;
+
+/**
+ * A kapcsolattart feltteles lekrdezshez szksges adatok: a verzi s az
+ * utols mdosts (ennek hinyban a ltrehozs) ideje.
+ */
+public interface ContactPersonVersion {
+
+	Long getId();
+
+	Long getVersion();
+
+	Date getLastModified();
+
+}
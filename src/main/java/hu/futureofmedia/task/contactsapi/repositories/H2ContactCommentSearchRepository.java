@@ -0,0 +1,40 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * Helyi keress a H2 beptett teljes szveges indexn (lsd schema-h2.sql),
+ * amelyet triggerek tartanak naprakszen. A H2 natv indexe nem slyoz, gy a
+ * tallatok azonost szerint rendezettek.
+ */
+@Repository
+@ConditionalOnProperty(name = "contacts.comment-search", havingValue = "h2", matchIfMissing = true)
+public class H2ContactCommentSearchRepository implements ContactCommentSearchRepository {
+
+	private static final String SEARCH = "SELECT c.id FROM FT_SEARCH_DATA(:query, 0, 0) ft "
+			+ "JOIN contact_person c ON c.id = CAST(ft.KEYS[1] AS BIGINT) "
+			+ "WHERE ft.\"TABLE\" = 'CONTACT_PERSON' AND c.status = 'ACTIVE' ";
+	private static final String COMPANY = "AND c.company_id = :companyId ";
+	private static final String ORDER = "ORDER BY ft.SCORE DESC, c.id LIMIT :limit OFFSET :offset";
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Override
+	@Timed("contacts.repository")
+	public List<Long> findActiveIdsByComment(String query, Long companyId, long offset, int limit) {
+		return jdbcTemplate.queryForList(SEARCH + (companyId != null ? COMPANY : "") + ORDER,
+				new MapSqlParameterSource("query", query).addValue("companyId", companyId).addValue("limit", limit)
+						.addValue("offset", offset),
+				Long.class);
+	}
+
+}
@@ -0,0 +1,38 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import io.micrometer.core.annotation.Timed;
+
+/**
+ * PostgreSQL keress a generlt {@code comment_tsv} oszlopon (GIN index, lsd
+ * setup.sql), {@code ts_rank} szerinti rangsorral.
+ */
+@Repository
+@ConditionalOnProperty(name = "contacts.comment-search", havingValue = "postgres")
+public class PostgresContactCommentSearchRepository implements ContactCommentSearchRepository {
+
+	private static final String SEARCH = "SELECT c.id FROM contact_person c, "
+			+ "websearch_to_tsquery('simple', :query) q WHERE c.status = 'ACTIVE' AND c.comment_tsv @@ q ";
+	private static final String COMPANY = "AND c.company_id = :companyId ";
+	private static final String ORDER = "ORDER BY ts_rank(c.comment_tsv, q) DESC, c.id LIMIT :limit OFFSET :offset";
+
+	@Autowired
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Override
+	@Timed("contacts.repository")
+	public List<Long> findActiveIdsByComment(String query, Long companyId, long offset, int limit) {
+		return jdbcTemplate.queryForList(SEARCH + (companyId != null ? COMPANY : "") + ORDER,
+				new MapSqlParameterSource("query", query).addValue("companyId", companyId).addValue("limit", limit)
+						.addValue("offset", offset),
+				Long.class);
+	}
+
+}
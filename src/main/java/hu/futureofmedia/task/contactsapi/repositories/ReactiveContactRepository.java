@@ -0,0 +1,123 @@
+package hu.futureofmedia.task.contactsapi.repositories;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Map;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * A kapcsolattartk nem blokkol olvassa R2DBC-n keresztl, a
+ * {@code reactive} profilban. A sorok olvass kzben, a kliens ignye
+ * szerint (backpressure) kerlnek tovbbtsra.
+ *
+ * A connection pool szndkosan nem Spring bean: egy ConnectionFactory bean
+ * mellett a Spring Boot nem hozn ltre a JPA ltal hasznlt DataSource-ot.
+ */
+@Repository
+@Profile("reactive")
+public class ReactiveContactRepository {
+
+	private static final String FIND_BY_ID = "SELECT c.id, c.first_name, c.last_name, c.email, c.phone_number, "
+			+ "c.comment, c.created_at, c.last_modified, c.version, co.name AS company_name "
+			+ "FROM contact_person c LEFT JOIN company co ON co.id = c.company_id WHERE c.id = :id";
+
+	private final ConnectionPool connectionPool;
+	private final DatabaseClient databaseClient;
+
+	public ReactiveContactRepository(@Value("${contacts.r2dbc.url}") String url,
+			@Value("${contacts.r2dbc.pool.max-size:20}") int maxSize) {
+		this.connectionPool = new ConnectionPool(
+				ConnectionPoolConfiguration.builder(ConnectionFactories.get(url)).maxSize(maxSize).build());
+		this.databaseClient = DatabaseClient.create(connectionPool);
+	}
+
+	public Flux<SimplifiedContactPersonDTO> findActive(ActiveContactSql query) {
+		DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(query.getSql());
+		for (Map.Entry<String, Object> parameter : query.getParameters().entrySet()) {
+			spec = spec.bind(parameter.getKey(), parameter.getValue());
+		}
+		return spec.map((row, metadata) -> new SimplifiedContactPersonDTO(
+				row.get("first_name", String.class) + " " + row.get("last_name", String.class),
+				row.get("company_name", String.class), row.get("email", String.class),
+				row.get("phone_number", String.class))).all();
+	}
+
+	public Mono<VersionedContact> findById(Long id) {
+		return databaseClient.sql(FIND_BY_ID).bind("id", id).map((row, metadata) -> toVersionedContact(row)).one();
+	}
+
+	@PreDestroy
+	public void close() {
+		connectionPool.dispose();
+	}
+
+	private VersionedContact toVersionedContact(Row row) {
+		ContactPersonDTO dto = new ContactPersonDTO();
+		dto.setFirstName(row.get("first_name", String.class));
+		dto.setLastName(row.get("last_name", String.class));
+		dto.setEmail(row.get("email", String.class));
+		dto.setPhoneNumber(row.get("phone_number", String.class));
+		dto.setComment(row.get("comment", String.class));
+		dto.setCompanyName(row.get("company_name", String.class));
+		dto.setCreatedAt(toDate(row.get("created_at", LocalDateTime.class)));
+		dto.setLastModified(toDate(row.get("last_modified", LocalDateTime.class)));
+		return new VersionedContact(row.get("id", Long.class), row.get("version", Long.class), dto);
+	}
+
+	private static Date toDate(LocalDateTime value) {
+		return value != null ? Timestamp.valueOf(value) : null;
+	}
+
+	/**
+	 * A rszletes nzet az ETag-hez szksges azonostval s verzival.
+	 */
+	public static final class VersionedContact {
+
+		private final Long id;
+		private final Long version;
+		private final ContactPersonDTO contact;
+
+		private VersionedContact(Long id, Long version, ContactPersonDTO contact) {
+			this.id = id;
+			this.version = version;
+			this.contact = contact;
+		}
+
+		public Long getId() {
+			return id;
+		}
+
+		public Long getVersion() {
+			return version;
+		}
+
+		public ContactPersonDTO getContact() {
+			return contact;
+		}
+
+		/**
+		 * Az utols mdosts, ennek hinyban a ltrehozs ideje.
+		 */
+		public Date getLastModified() {
+			return contact.getLastModified() != null ? contact.getLastModified() : contact.getCreatedAt();
+		}
+
+	}
+
+}
@@ -0,0 +1,339 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactChangeDTO;
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
+import hu.futureofmedia.task.contactsapi.repositories.ContactChangeRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * A kapcsolattartk vltozsnaplja. A mdostsok a tranzakci lezrsa
+ * utn egy mretkorltos, zrols nlkli sorba kerlnek, ahonnan egy
+ * httrszl csomagonknt, JDBC batch-ben rja ket a contact_change
+ * tblba, gy a krsek nem vrnak a naplzsra.
+ *
+ * A sorszmot az r osztja ki a contact_change_writer sor zrolsa alatt,
+ * a bers sorrendjben, gy tbb pldny esetn sem tkznek, s egy
+ * sorszm utn olvas fogyaszt nem ugorhat t ksbb megjelen bejegyzst.
+ *
+ * A krsek sosem rnak: ha a sor megtelt, az j bejegyzs elvsz, s a
+ * {@code contacts.audit.rejected} szmllba kerl. tmeneti hiba (pl.
+ * elrhetetlen adatbzis) esetn a csomag megmarad, s a httrszl egyre
+ * ritkbban jraprblja. Ha az adatbzis magt a csomagot utastja el
+ * (pl. megszorts srl), a csomag soronknt rdik ki, az ekkor is hibs
+ * bejegyzs a hibanaplba kerl, s kimarad a tblbl.
+ */
+@Component
+public class ContactChangeLog {
+
+	private static final Logger log = LoggerFactory.getLogger(ContactChangeLog.class);
+
+	private static final int BATCH_SIZE = 500;
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+	private static final String LOCK_WRITER = "select id from contact_change_writer where id = 1 for update";
+	private static final String LAST_ID = "select coalesce(max(id), 0) from contact_change";
+	private static final String INSERT_CHANGE = "insert into contact_change (id, contact_id, type, contact_version, "
+			+ "changed_at, payload) values (?, ?, ?, ?, ?, ?)";
+
+	private final Queue<Change> queue = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean overflowing = new AtomicBoolean();
+	private final AtomicInteger queued = new AtomicInteger();
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final List<Object[]> pending = new ArrayList<>(BATCH_SIZE);
+	private final int capacity;
+	private final Duration flushInterval;
+	private final ScheduledExecutorService writer;
+	private final AtomicLong rejected = new AtomicLong();
+	private long backoffMillis;
+	private volatile long retryAtMillis;
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private ContactChangeRepository changeRepository;
+
+	public ContactChangeLog(@Value("${contacts.audit.queue-capacity:10000}") int capacity,
+			@Value("${contacts.audit.flush-interval:200ms}") Duration flushInterval) {
+		this.capacity = capacity;
+		this.flushInterval = flushInterval;
+		this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "contact-change-writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		// Az rs sosem csatlakozik egy folyamatban lv tranzakcihoz.
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	@Autowired(required = false)
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		Gauge.builder("contacts.audit.queue", queued, AtomicInteger::get).register(meterRegistry);
+		FunctionCounter.builder("contacts.audit.rejected", rejected, AtomicLong::get).register(meterRegistry);
+	}
+
+	@PostConstruct
+	public void start() {
+		writer.scheduleWithFixedDelay(this::scheduledFlush, flushInterval.toMillis(), flushInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() throws InterruptedException {
+		writer.shutdown();
+		writer.awaitTermination(5, TimeUnit.SECONDS);
+		flushQuietly();
+	}
+
+	/**
+	 * A vltozs naplzsa. Tranzakcin bell csak a sikeres lezrs utn
+	 * kerl a sorba.
+	 *
+	 * @param contact a kapcsolattart adatai a vltozs utn, trlsnl null
+	 */
+	public void record(ChangeType type, Long contactId, Long contactVersion, ContactPersonDTO contact) {
+		Change change = new Change(type, contactId, contactVersion, new Date(), contact);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					enqueue(change);
+				}
+			});
+		} else {
+			enqueue(change);
+		}
+	}
+
+	/**
+	 * A megadott sorszm utni vltozsok, sorszm szerint nvekv sorrendben.
+	 */
+	public List<ContactChangeDTO> getChangesSince(long since, int limit) {
+		return changeRepository
+				.findByIdGreaterThanOrderById(since, PageRequest.of(0, Math.min(limit, MAX_PAGE_SIZE)))
+				.stream()
+				.map(change -> new ContactChangeDTO(change.getId(), change.getContactId(), change.getType(),
+						change.getContactVersion(), change.getChangedAt(), toJson(change.getPayload())))
+				.collect(Collectors.toList());
+	}
+
+	private JsonNode toJson(String payload) {
+		try {
+			return payload != null ? objectMapper.readTree(payload) : null;
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * A sorban vrakoz vltozsok kirsa, a visszalpsi idtl fggetlenl.
+	 * tmeneti hiba esetn a kivtelt tovbbdobja, a csomag megmarad.
+	 */
+	public void flush() {
+		writeLock.lock();
+		try {
+			for (;;) {
+				Change change;
+				while (pending.size() < BATCH_SIZE && (change = queue.poll()) != null) {
+					queued.decrementAndGet();
+					Object[] row = toRow(change);
+					if (row != null) {
+						pending.add(row);
+					}
+				}
+				if (pending.isEmpty()) {
+					break;
+				}
+				insertPending();
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void enqueue(Change change) {
+		if (queued.incrementAndGet() > capacity) {
+			queued.decrementAndGet();
+			rejected.incrementAndGet();
+			if (overflowing.compareAndSet(false, true)) {
+				log.error("The contact change queue is full ({} changes), new changes are left out of the log",
+						capacity);
+			}
+			return;
+		}
+		queue.offer(change);
+	}
+
+	private void scheduledFlush() {
+		if (System.currentTimeMillis() < retryAtMillis) {
+			return;
+		}
+		flushQuietly();
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException e) {
+			log.warn("Writing the contact change log failed, retrying in {} ms", backoffMillis, e);
+		}
+	}
+
+	/**
+	 * A csomag kirsa. tmeneti hiba esetn a csomag megmarad, s a
+	 * kvetkez prblkozs a duplzd visszalpsi id utn jn; ha az
+	 * adatbzis a csomagot utastja el, soronknt rdik ki, gy egy hibs
+	 * bejegyzs nem akasztja meg a naplt.
+	 */
+	private void insertPending() {
+		try {
+			insert(pending);
+		} catch (RuntimeException e) {
+			if (!isRejectedByTheDatabase(e)) {
+				throw backOff(e);
+			}
+			log.error("Writing {} contact changes was rejected, writing them one by one", pending.size(), e);
+			for (Iterator<Object[]> rows = pending.iterator(); rows.hasNext();) {
+				Object[] row = rows.next();
+				try {
+					insert(Collections.singletonList(row));
+				} catch (RuntimeException rowFailure) {
+					if (!isRejectedByTheDatabase(rowFailure)) {
+						// A mr kirt sorok kikerltek, a tbbi a kvetkez prblkozssal megy.
+						throw backOff(rowFailure);
+					}
+					reject(Arrays.toString(row), rowFailure);
+				}
+				rows.remove();
+			}
+		}
+		pending.clear();
+		backoffMillis = 0;
+		retryAtMillis = 0;
+		overflowing.set(false);
+	}
+
+	private RuntimeException backOff(RuntimeException e) {
+		backoffMillis = Math.min(Math.max(backoffMillis * 2, flushInterval.toMillis()), MAX_BACKOFF.toMillis());
+		retryAtMillis = System.currentTimeMillis() + backoffMillis;
+		return e;
+	}
+
+	private void insert(List<Object[]> rows) {
+		transactionTemplate.executeWithoutResult(status -> {
+			jdbcTemplate.queryForObject(LOCK_WRITER, Integer.class);
+			long id = jdbcTemplate.queryForObject(LAST_ID, Long.class);
+			List<Object[]> batch = new ArrayList<>(rows.size());
+			for (Object[] row : rows) {
+				Object[] values = new Object[row.length + 1];
+				values[0] = ++id;
+				System.arraycopy(row, 0, values, 1, row.length);
+				batch.add(values);
+			}
+			jdbcTemplate.batchUpdate(INSERT_CHANGE, batch);
+		});
+	}
+
+	/**
+	 * A csomag tartalma miatti hiba; a kapcsoldsi s tmeneti hibk nem
+	 * ilyenek.
+	 */
+	private static boolean isRejectedByTheDatabase(RuntimeException e) {
+		return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+	}
+
+	private Object[] toRow(Change change) {
+		String payload;
+		try {
+			payload = change.contact != null ? objectMapper.writeValueAsString(change.contact) : null;
+		} catch (JsonProcessingException e) {
+			reject(change.type + " " + change.contactId, e);
+			return null;
+		}
+		return new Object[] { change.contactId, change.type.name(), change.contactVersion,
+				new Timestamp(change.changedAt.getTime()), payload };
+	}
+
+	private void reject(String change, Exception cause) {
+		rejected.incrementAndGet();
+		log.error("Contact change could not be written and is left out of the log: {}", change, cause);
+	}
+
+	private static final class Change {
+
+		private final ChangeType type;
+		private final Long contactId;
+		private final Long contactVersion;
+		private final Date changedAt;
+		private final ContactPersonDTO contact;
+
+		private Change(ChangeType type, Long contactId, Long contactVersion, Date changedAt,
+				ContactPersonDTO contact) {
+			this.type = type;
+			this.contactId = contactId;
+			this.contactVersion = contactVersion;
+			this.changedAt = changedAt;
+			this.contact = contact;
+		}
+
+	}
+
+}
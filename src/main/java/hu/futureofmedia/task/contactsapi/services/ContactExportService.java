@@ -0,0 +1,127 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.repositories.ActiveContactSql;
+
+/**
+ * Az aktv kapcsolattartk exportja. A sorokat egy csak elre halad JDBC
+ * kurzorrl olvassa s azonnal a kimenetre rja, gy sem entitsok, sem a
+ * teljes eredmny nem kerl a memriba.
+ */
+@Service
+@Lazy
+public class ContactExportService {
+
+	private static final int FETCH_SIZE = 1000;
+	public static final String CSV_HEADER = "name,companyName,email,phoneNumber";
+
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private PhoneNumberValidator phoneNumberValidator;
+
+	@Autowired
+	public void setDataSource(DataSource dataSource) {
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.setFetchSize(FETCH_SIZE);
+		this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+	}
+
+	/**
+	 * A PostgreSQL JDBC driver csak tranzakcin bell veszi figyelembe a fetch
+	 * size-t, ezrt fut az export csak olvashat tranzakciban.
+	 */
+	@Transactional(readOnly = true)
+	public void exportActiveContacts(ExportFormat format, String firstName, String lastName, String email,
+			String phoneNumber, String comment, OutputStream out) throws IOException {
+		ActiveContactSql query = ActiveContactSql.matching(firstName, lastName, email,
+				phoneNumberValidator.normalizeIfValid(phoneNumber), comment);
+		try {
+			if (format == ExportFormat.CSV) {
+				writeCsv(query, out);
+			} else {
+				writeNdjson(query, out);
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+	}
+
+	private void writeNdjson(ActiveContactSql query, OutputStream out) throws IOException {
+		try (SequenceWriter writer = objectMapper.writerFor(SimplifiedContactPersonDTO.class)
+				.withRootValueSeparator("\n").writeValues(out)) {
+			jdbcTemplate.query(query.getSql(), query.getParameters(), (RowCallbackHandler) rs -> {
+				try {
+					writer.write(toTableView(rs));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+	private void writeCsv(ActiveContactSql query, OutputStream out) throws IOException {
+		try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+			writer.write(CSV_HEADER);
+			writer.write("\r\n");
+			jdbcTemplate.query(query.getSql(), query.getParameters(), (RowCallbackHandler) rs -> {
+				try {
+					writer.write(csvRow(toTableView(rs)));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+
+	private SimplifiedContactPersonDTO toTableView(ResultSet rs) throws SQLException {
+		return new SimplifiedContactPersonDTO(rs.getString("first_name") + " " + rs.getString("last_name"),
+				rs.getString("company_name"), rs.getString("email"), rs.getString("phone_number"));
+	}
+
+	/**
+	 * A kapcsolattart egy CSV sorknt, sorvge jellel egytt.
+	 */
+	public static String csvRow(SimplifiedContactPersonDTO contact) {
+		return csvField(contact.getName()) + ',' + csvField(contact.getCompanyName()) + ','
+				+ csvField(contact.getEmail()) + ',' + csvField(contact.getPhoneNumber()) + "\r\n";
+	}
+
+	private static String csvField(String value) {
+		if (value == null) {
+			return "";
+		}
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0) {
+			return value;
+		}
+		return '"' + value.replace("\"", "\"\"") + '"';
+	}
+
+}
@@ -0,0 +1,75 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+
+/**
+ * A kapcsolattart rszletes nzetnek a {@code fields} paramterrel
+ * krhet mezi. A mez neve megegyezik a {@code ContactPersonDTO}
+ * tulajdonsgval, az attribtum a lekrdezsben hasznlt JPA tvonal.
+ */
+public enum ContactField {
+	FIRST_NAME("firstName", "firstName", ContactPerson::getFirstName),
+	LAST_NAME("lastName", "lastName", ContactPerson::getLastName),
+	EMAIL("email", "email", ContactPerson::getEmail),
+	PHONE_NUMBER("phoneNumber", "phoneNumber", ContactPerson::getPhoneNumber),
+	COMMENT("comment", "comment", ContactPerson::getComment),
+	CREATED_AT("createdAt", "createdAt", ContactPerson::getCreatedAt),
+	LAST_MODIFIED("lastModified", "lastModified", ContactPerson::getLastModified),
+	COMPANY_NAME("companyName", "company.name",
+			entity -> entity.getCompany() != null ? entity.getCompany().getName() : null);
+
+	private final String name;
+	private final String attribute;
+	private final Function<ContactPerson, Object> getter;
+
+	ContactField(String name, String attribute, Function<ContactPerson, Object> getter) {
+		this.name = name;
+		this.attribute = attribute;
+		this.getter = getter;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getAttribute() {
+		return attribute;
+	}
+
+	/**
+	 * A vesszvel elvlasztott meznevek, a felsorols sorrendjben.
+	 */
+	public static Set<ContactField> fromParameter(String value) {
+		Set<ContactField> fields = EnumSet.noneOf(ContactField.class);
+		for (String name : value.split(",")) {
+			fields.add(fromName(name.trim()));
+		}
+		return fields;
+	}
+
+	/**
+	 * A krt mezk egy mr betlttt entitsbl.
+	 */
+	public static Map<String, Object> select(ContactPerson entity, Set<ContactField> fields) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (ContactField field : fields) {
+			result.put(field.name, field.getter.apply(entity));
+		}
+		return result;
+	}
+
+	private static ContactField fromName(String name) {
+		for (ContactField field : values()) {
+			if (field.name.equals(name)) {
+				return field;
+			}
+		}
+		throw new IllegalArgumentException("Unknown contact field: " + name);
+	}
+}
@@ -0,0 +1,244 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactImportErrorDTO;
+import hu.futureofmedia.task.contactsapi.dto.ContactImportResultDTO;
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
+import hu.futureofmedia.task.contactsapi.entities.Company;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.entities.Status;
+import hu.futureofmedia.task.contactsapi.repositories.CompanyRepository;
+
+/**
+ * Kapcsolattartk tmeges betltse. A krs trzst (JSON tmb vagy NDJSON)
+ * folyamatosan olvassa, a sorokat csomagonknt ellenrzi, a cgeket egyetlen
+ * lekrdezssel oldja fel, majd JDBC batch-ben szrja be.
+ */
+@Service
+@Lazy
+public class ContactImportService {
+
+	private static final int CHUNK_SIZE = 1000;
+	private static final int MAX_REPORTED_ERRORS = 1000;
+	private static final String INSERT_CONTACT = "insert into contact_person (id, first_name, last_name, email, "
+			+ "phone_number, company_id, comment, status, created_at, version) values (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+	private CompanyRepository companyRepository;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+	private String nextIdQuery;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private Validator validator;
+
+	@Autowired
+	private ContactSearchIndex searchIndex;
+
+	@Autowired
+	private PhoneNumberValidator phoneNumberValidator;
+
+	@Autowired
+	private ContactChangeLog changeLog;
+
+	@Autowired
+	public void setCompanyRepository(CompanyRepository companyRepository) {
+		this.companyRepository = companyRepository;
+	}
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Autowired
+	public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory) {
+		Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices()
+				.getDialect();
+		this.nextIdQuery = dialect.getSequenceNextValString(ContactPerson.ID_SEQUENCE);
+	}
+
+	public ContactImportResultDTO importContacts(InputStream body) throws IOException {
+		ContactImportResultDTO result = new ContactImportResultDTO();
+		IdAllocator ids = new IdAllocator();
+		List<ImportRow> chunk = new ArrayList<>(CHUNK_SIZE);
+		long rowNumber = 0;
+		try (MappingIterator<ContactPersonDTO> rows = objectMapper.readerFor(ContactPersonDTO.class)
+				.readValues(body)) {
+			while (rows.hasNextValue()) {
+				rowNumber++;
+				try {
+					chunk.add(new ImportRow(rowNumber, rows.nextValue()));
+				} catch (JsonMappingException e) {
+					reportError(result, rowNumber, e.getOriginalMessage());
+					continue;
+				}
+				if (chunk.size() == CHUNK_SIZE) {
+					importChunk(chunk, ids, result);
+					chunk.clear();
+				}
+			}
+		} catch (JsonParseException e) {
+			reportError(result, rowNumber, "Malformed JSON: " + e.getOriginalMessage());
+		}
+		if (!chunk.isEmpty()) {
+			importChunk(chunk, ids, result);
+		}
+		return result;
+	}
+
+	private void importChunk(List<ImportRow> chunk, IdAllocator ids, ContactImportResultDTO result) {
+		Map<String, Company> companies = resolveCompanies(chunk);
+		List<PhoneNumberValidator.Result> phoneNumbers = phoneNumberValidator
+				.validateAll(chunk.stream().map(row -> row.contact.getPhoneNumber()).collect(Collectors.toList()));
+		Timestamp now = new Timestamp(System.currentTimeMillis());
+		List<ImportRow> validRows = new ArrayList<>(chunk.size());
+		List<Object[]> batch = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			ImportRow row = chunk.get(i);
+			ContactPersonDTO dto = row.contact;
+			String error = validate(dto, phoneNumbers.get(i), companies);
+			if (error != null) {
+				reportError(result, row.number, error);
+				continue;
+			}
+			dto.setPhoneNumber(phoneNumbers.get(i).getNormalized());
+			dto.setCreatedAt(now);
+			validRows.add(row);
+			batch.add(new Object[] { ids.next(), dto.getFirstName(), dto.getLastName(), dto.getEmail(),
+					dto.getPhoneNumber(), companies.get(dto.getCompanyName()).getId(), dto.getComment(),
+					Status.ACTIVE.name(), now });
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_CONTACT, batch));
+			result.setImported(result.getImported() + batch.size());
+			for (int i = 0; i < batch.size(); i++) {
+				indexRow((Long) batch.get(i)[0], validRows.get(i).contact);
+			}
+		} catch (DataIntegrityViolationException e) {
+			// A csomag visszagrgetve, soronknt jra, hogy kiderljn melyik sor tkzik.
+			for (int i = 0; i < batch.size(); i++) {
+				try {
+					jdbcTemplate.update(INSERT_CONTACT, batch.get(i));
+					result.setImported(result.getImported() + 1);
+					indexRow((Long) batch.get(i)[0], validRows.get(i).contact);
+				} catch (DataIntegrityViolationException rowError) {
+					reportError(result, validRows.get(i).number, "The email or phone number is already in use.");
+				}
+			}
+		}
+	}
+
+	private void indexRow(Long id, ContactPersonDTO dto) {
+		searchIndex.put(id, new SimplifiedContactPersonDTO(dto.getFirstName() + " " + dto.getLastName(),
+				dto.getCompanyName(), dto.getEmail(), dto.getPhoneNumber()));
+		changeLog.record(ChangeType.CREATE, id, 0L, dto);
+	}
+
+	private Map<String, Company> resolveCompanies(List<ImportRow> chunk) {
+		Set<String> names = chunk.stream().map(row -> row.contact.getCompanyName()).filter(name -> name != null)
+				.collect(Collectors.toSet());
+		return companyRepository.findByNameIn(names).stream()
+				.collect(Collectors.toMap(Company::getName, Function.identity(), (first, second) -> first));
+	}
+
+	private String validate(ContactPersonDTO dto, PhoneNumberValidator.Result phoneNumber,
+			Map<String, Company> companies) {
+		Set<ConstraintViolation<ContactPersonDTO>> violations = validator.validate(dto);
+		if (!violations.isEmpty()) {
+			return violations.stream().map(v -> v.getPropertyPath() + ": " + v.getMessage())
+					.collect(Collectors.joining(", "));
+		}
+		if (!phoneNumber.isValid()) {
+			return phoneNumber.getError();
+		}
+		if (!companies.containsKey(dto.getCompanyName())) {
+			return "Company was not found with this name: " + dto.getCompanyName();
+		}
+		return null;
+	}
+
+	private void reportError(ContactImportResultDTO result, long row, String message) {
+		result.setFailed(result.getFailed() + 1);
+		if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+			result.getErrors().add(new ContactImportErrorDTO(row, message));
+		}
+	}
+
+	private static final class ImportRow {
+
+		private final long number;
+		private final ContactPersonDTO contact;
+
+		private ImportRow(long number, ContactPersonDTO contact) {
+			this.number = number;
+			this.contact = contact;
+		}
+
+	}
+
+	/**
+	 * Azonostk kiosztsa a Hibernate pooled optimizervel megegyez mdon: a
+	 * szekvencia minden rtke az azt megelz {@link ContactPerson#ID_ALLOCATION_SIZE}
+	 * darab azonostt foglalja le.
+	 */
+	private final class IdAllocator {
+
+		private long next = 1;
+		private long last = 0;
+
+		private long next() {
+			if (next > last) {
+				long hi;
+				do {
+					hi = jdbcTemplate.queryForObject(nextIdQuery, Long.class);
+				} while (hi < ContactPerson.ID_ALLOCATION_SIZE);
+				next = hi - ContactPerson.ID_ALLOCATION_SIZE + 1;
+				last = hi;
+			}
+			return next++;
+		}
+
+	}
+
+}
@@ -1,41 +1,98 @@
 package hu.futureofmedia.task.contactsapi.services;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-import javax.annotation.PostConstruct;
-
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
 import com.google.i18n.phonenumbers.NumberParseException;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
-import com.google.i18n.phonenumbers.Phonenumber;
 
+import hu.futureofmedia.task.contactsapi.config.CacheConfig;
+import hu.futureofmedia.task.contactsapi.dto.ContactCursor;
 import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.CursorPageDTO;
 import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
-import hu.futureofmedia.task.contactsapi.entities.Company;
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
 import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
 import hu.futureofmedia.task.contactsapi.entities.Status;
 import hu.futureofmedia.task.contactsapi.exceptions.ContactPersonNotFoundException;
+import hu.futureofmedia.task.contactsapi.mappers.ContactPersonMapper;
 import hu.futureofmedia.task.contactsapi.repositories.CompanyRepository;
+import hu.futureofmedia.task.contactsapi.repositories.ContactCommentSearchRepository;
 import hu.futureofmedia.task.contactsapi.repositories.ContactPersonReporsitory;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonSpecifications;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonVersion;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+/**
+ * A szolgltats metdusai a {@code contacts.service} idmrbe kerlnek
+ * (osztly s metdus cmkvel), a lekpezs s a telefonszm ellenrzs
+ * kln, a {@code contacts.service.mapping} s a
+ * {@code contacts.service.phone-validation} idmrkbe.
+ */
 @Service
 public class ContactPersonService {
 
+	private static final int PAGE_SIZE = 10;
+	private static final String NOT_FOUND_MESSAGE = "Contact person was not found with this ID";
+	private static final String TIMER = "contacts.service";
+	private static final Sort ACTIVE_CONTACTS_ORDER = Sort.by(Sort.Order.asc("firstName"), Sort.Order.asc("lastName"),
+			Sort.Order.asc("id"));
+
 	private CompanyRepository companyRepository;
 	private ContactPersonReporsitory contactRepo;
-	private static PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
 
 	@Autowired
-	private ModelMapper modelMapper;
+	private ContactPersonMapper contactMapper;
+
+	@Autowired
+	private ContactSearchIndex searchIndex;
+
+	@Autowired
+	private PhoneNumberValidator phoneNumberValidator;
+
+	@Autowired
+	private ContactCommentSearchRepository commentSearch;
+
+	@Autowired
+	private ContactChangeLog changeLog;
+
+	private MeterRegistry meterRegistry;
+	private Timer tableViewMappingTimer;
+	private Timer detailedViewMappingTimer;
+	private Timer entityMappingTimer;
+	private Timer phoneValidationTimer;
+
+	@Autowired
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.tableViewMappingTimer = meterRegistry.timer(TIMER + ".mapping", "view", "table");
+		this.detailedViewMappingTimer = meterRegistry.timer(TIMER + ".mapping", "view", "detailed");
+		this.entityMappingTimer = meterRegistry.timer(TIMER + ".mapping", "view", "entity");
+		this.phoneValidationTimer = meterRegistry.timer(TIMER + ".phone-validation");
+	}
 
 	@Autowired
 	public void setContactRepo(ContactPersonReporsitory contactRepo) {
@@ -47,94 +104,319 @@ public class ContactPersonService {
 		this.companyRepository = companyRepository;
 	}
 
+	@Timed(TIMER)
 	public List<ContactPerson> getContacts() {
 		return contactRepo.findAll();
 	}
 
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
 	public List<SimplifiedContactPersonDTO> getActiveContacts(String firstName, String lastName, String email,
 			String phoneNumber, String comment, int pageNumber) {
-		Pageable page = PageRequest.of(pageNumber, 10,
-				Sort.by(Sort.Order.asc("firstName"), Sort.Order.asc("lastName")));
-		return contactRepo.findAllActive(firstName, lastName, email, phoneNumber, comment, page).getContent().stream()
-				.map(this::transformContactEntityToTableView).collect(Collectors.toList());
+		return getActiveContactsPage(firstName, lastName, email, phoneNumber, comment, pageNumber).getContent();
+	}
+
+	/**
+	 * A {@link #getActiveContacts} oldala a sorok ujjlenyomatval, amely
+	 * megegyezik a {@link #getActiveContactsFingerprint} rtkvel.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public CursorPageDTO<SimplifiedContactPersonDTO> getActiveContactsPage(String firstName, String lastName,
+			String email, String phoneNumber, String comment, int pageNumber) {
+		Pageable page = PageRequest.of(pageNumber, PAGE_SIZE, ACTIVE_CONTACTS_ORDER);
+		Specification<ContactPerson> spec = ContactPersonSpecifications.activeMatching(firstName, lastName, email,
+				normalizePhoneNumberFilter(phoneNumber), comment);
+		return toPage(contactRepo.findSlice(spec, page));
+	}
+
+	/**
+	 * Egy cg aktv kapcsolattarti, a {@link #getActiveContacts} szrivel s
+	 * sorrendjvel. PostgreSQL-en a lekrdezs csak a cg partcijt olvassa.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public List<SimplifiedContactPersonDTO> getActiveContactsOfCompany(Long companyId, String firstName,
+			String lastName, String email, String phoneNumber, String comment, int pageNumber) {
+		return getActiveContactsOfCompanyPage(companyId, firstName, lastName, email, phoneNumber, comment,
+				pageNumber).getContent();
+	}
+
+	/**
+	 * A {@link #getActiveContactsOfCompany} oldala a sorok ujjlenyomatval.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public CursorPageDTO<SimplifiedContactPersonDTO> getActiveContactsOfCompanyPage(Long companyId,
+			String firstName, String lastName, String email, String phoneNumber, String comment, int pageNumber) {
+		Pageable page = PageRequest.of(pageNumber, PAGE_SIZE, ACTIVE_CONTACTS_ORDER);
+		return toPage(contactRepo
+				.findSlice(activeContactsOfCompany(companyId, firstName, lastName, email, phoneNumber, comment), page));
+	}
+
+	/**
+	 * A {@link #getActiveContactsOfCompany} ltal visszaadott oldal ujjlenyomata.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public String getActiveContactsOfCompanyFingerprint(Long companyId, String firstName, String lastName,
+			String email, String phoneNumber, String comment, int pageNumber) {
+		Pageable page = PageRequest.of(pageNumber, PAGE_SIZE, ACTIVE_CONTACTS_ORDER);
+		return fingerprint(activeContactsOfCompany(companyId, firstName, lastName, email, phoneNumber, comment),
+				page);
+	}
+
+	/**
+	 * A {@link #getActiveContacts} ltal visszaadott oldal ujjlenyomata. Csak a
+	 * sorok azonostjt, verzijt s cgnevt krdezi le, gy olcsn
+	 * eldnthet, hogy az oldal vltozott-e.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public String getActiveContactsFingerprint(String firstName, String lastName, String email, String phoneNumber,
+			String comment, int pageNumber) {
+		Pageable page = PageRequest.of(pageNumber, PAGE_SIZE, ACTIVE_CONTACTS_ORDER);
+		Specification<ContactPerson> spec = ContactPersonSpecifications.activeMatching(firstName, lastName, email,
+				normalizePhoneNumberFilter(phoneNumber), comment);
+		return fingerprint(spec, page);
+	}
+
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public CursorPageDTO<SimplifiedContactPersonDTO> getActiveContactsAfter(String firstName, String lastName,
+			String email, String phoneNumber, String comment, String cursor) {
+		Pageable page = PageRequest.of(0, PAGE_SIZE + 1, ACTIVE_CONTACTS_ORDER);
+		List<ContactPerson> contacts = contactRepo.findSlice(
+				activeContactsAfter(firstName, lastName, email, phoneNumber, comment, cursor), page);
+		String fingerprint = fingerprint(contacts);
+		String nextCursor = null;
+		if (contacts.size() > PAGE_SIZE) {
+			contacts = contacts.subList(0, PAGE_SIZE);
+			ContactPerson last = contacts.get(PAGE_SIZE - 1);
+			nextCursor = new ContactCursor(last.getFirstName(), last.getLastName(), last.getId()).encode();
+		}
+		return new CursorPageDTO<>(
+				contacts.stream().map(this::transformContactEntityToTableView).collect(Collectors.toList()),
+				nextCursor, fingerprint);
+	}
+
+	/**
+	 * A {@link #getActiveContactsAfter} ltal visszaadott oldal ujjlenyomata. A
+	 * kvetkez oldal tokenje miatt a plusz egy sort is tartalmazza.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public String getActiveContactsAfterFingerprint(String firstName, String lastName, String email,
+			String phoneNumber, String comment, String cursor) {
+		Pageable page = PageRequest.of(0, PAGE_SIZE + 1, ACTIVE_CONTACTS_ORDER);
+		return fingerprint(activeContactsAfter(firstName, lastName, email, phoneNumber, comment, cursor), page);
+	}
+
+	@Timed(TIMER)
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.CONTACT_DETAILS, key = "#id")
+	public void deleteContactPersonById(Long id) throws ContactPersonNotFoundException {
+		if (contactRepo.softDeleteById(id, new Date()) == 0)
+			throw new ContactPersonNotFoundException(NOT_FOUND_MESSAGE);
+		searchIndex.remove(id);
+		changeLog.record(ChangeType.DELETE, id, null, null);
+	}
+
+	@Timed(TIMER)
+	public List<SimplifiedContactPersonDTO> searchContacts(String query, int limit) {
+		return searchIndex.search(query, limit);
+	}
+
+	/**
+	 * Teljes szveges keress a megjegyzsekben, relevancia szerint rendezve,
+	 * oldalanknt tz tallattal. A tallatok a cggel egytt, egy utastsban
+	 * tltdnek be.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public List<SimplifiedContactPersonDTO> searchContactsByComment(String query, int pageNumber) {
+		return searchContactsByComment(query, null, pageNumber);
 	}
 
-	public ContactPerson deleteContactPersonById(Long id) throws ContactPersonNotFoundException {
-		throwNotFoundContactException(id);
-		ContactPerson contactPerson = contactRepo.findById(id).get();
-		contactPerson.setStatus(Status.DELETED);
-		contactRepo.save(contactPerson);
-		return contactPerson;
+	/**
+	 * Teljes szveges keress egy cg kapcsolattartinak megjegyzsben.
+	 * 
+	 * @param companyId a cg azonostja, null esetn minden cg
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public List<SimplifiedContactPersonDTO> searchContactsByComment(String query, Long companyId, int pageNumber) {
+		List<Long> ids = commentSearch.findActiveIdsByComment(query, companyId, (long) pageNumber * PAGE_SIZE,
+				PAGE_SIZE);
+		if (ids.isEmpty()) {
+			return Collections.emptyList();
+		}
+		Map<Long, ContactPerson> contacts = contactRepo
+				.findSlice(ContactPersonSpecifications.idIn(ids), Pageable.unpaged()).stream()
+				.collect(Collectors.toMap(ContactPerson::getId, Function.identity()));
+		return ids.stream().map(contacts::get).filter(Objects::nonNull).map(this::transformContactEntityToTableView)
+				.collect(Collectors.toList());
 	}
 
+	/**
+	 * A rszletes nzet, gyorsttrazva. Nem csak olvas tranzakciban fut,
+	 * gy replika hasznlata esetn is az elsdlegesrl tltdik: a kzs
+	 * gyorsttrba nem kerlhet a replika ksse miatt elavult adat, amit
+	 * utna az r kliens is visszakapna.
+	 */
+	@Timed(TIMER)
+	@Transactional
+	@Cacheable(cacheNames = CacheConfig.CONTACT_DETAILS, sync = true)
 	public ContactPersonDTO getDetailedContactPerson(Long id) throws ContactPersonNotFoundException {
-		throwNotFoundContactException(id);
-		return transformContactEntityToDetailedView(contactRepo.findById(id).get());
+		return transformContactEntityToDetailedView(findContactPerson(id));
 	}
 
+	/**
+	 * A rszletes nzet krt mezi. Csak a krt oszlopok kerlnek
+	 * lekrdezsre, a cg csak a cgnv krse esetn kapcsoldik.
+	 */
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public Map<String, Object> getContactPersonFields(Long id, Set<ContactField> fields)
+			throws ContactPersonNotFoundException {
+		List<ContactField> selected = new ArrayList<>(fields);
+		Object[] row = contactRepo
+				.findAttributesById(id, selected.stream().map(ContactField::getAttribute).collect(Collectors.toList()))
+				.orElseThrow(() -> new ContactPersonNotFoundException(NOT_FOUND_MESSAGE));
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (int i = 0; i < selected.size(); i++) {
+			result.put(selected.get(i).getName(), row[i]);
+		}
+		return result;
+	}
+
+	@Timed(TIMER)
+	@Transactional(readOnly = true)
+	public ContactPersonVersion getContactPersonVersion(Long id) throws ContactPersonNotFoundException {
+		return contactRepo.findVersionById(id).orElseThrow(() -> new ContactPersonNotFoundException(NOT_FOUND_MESSAGE));
+	}
+
+	@Timed(TIMER)
 	public ContactPerson createContactPerson(ContactPersonDTO dto) throws NumberParseException {
 		ContactPerson entity = transformContactDTOToEntity(dto);
-		isValidPhoneNumber(dto.getPhoneNumber());
+		entity.setPhoneNumber(normalizePhoneNumber(dto.getPhoneNumber()));
 		entity.setStatus(Status.ACTIVE);
 		entity.setCreatedAt(new Date());
 		contactRepo.save(entity);
+		indexContact(entity);
+		changeLog.record(ChangeType.CREATE, entity.getId(), entity.getVersion(),
+				transformContactEntityToDetailedView(entity));
 		return entity;
 	}
 
-	public ContactPerson updateContactPerson(Long id, ContactPersonDTO dto)
+	/**
+	 * A kapcsolattart mdostsa a betlttt entitson, gy a dinamikus UPDATE
+	 * csak a vltozott oszlopokat rja, a verzi ellenrzst pedig a Hibernate
+	 * vgzi.
+	 * 
+	 * @param expectedVersion a kliens ltal ismert verzi, null esetn nincs
+	 *                        ellenrzs
+	 * @throws ObjectOptimisticLockingFailureException ha a kapcsolattartt
+	 *                                                 kzben ms mdostotta
+	 */
+	@Timed(TIMER)
+	@Transactional
+	@CacheEvict(cacheNames = CacheConfig.CONTACT_DETAILS, key = "#id")
+	public ContactPerson updateContactPerson(Long id, ContactPersonDTO dto, Long expectedVersion)
 			throws NumberParseException, ContactPersonNotFoundException {
-		throwNotFoundContactException(id);
-		ContactPerson oldEntity = contactRepo.findById(id).get();
-		ContactPerson entity = transformContactDTOToEntity(dto);
-		isValidPhoneNumber(dto.getPhoneNumber());
+		ContactPerson entity = findContactPerson(id);
+		if (expectedVersion != null && !expectedVersion.equals(entity.getVersion())) {
+			throw new ObjectOptimisticLockingFailureException(ContactPerson.class, id);
+		}
+		String phoneNumber = normalizePhoneNumber(dto.getPhoneNumber());
+		entityMappingTimer.record(() -> contactMapper.updateEntity(dto, entity));
+		entity.setPhoneNumber(phoneNumber);
+		entity.setCompany(companyRepository.findByName(dto.getCompanyName()));
 		entity.setLastModified(new Date());
-		entity.setId(id);
-		entity.setCreatedAt(oldEntity.getCreatedAt());
-		entity.setStatus(oldEntity.getStatus());
-		contactRepo.save(entity);
+		contactRepo.saveAndFlush(entity);
+		indexContact(entity);
+		changeLog.record(ChangeType.UPDATE, id, entity.getVersion(), transformContactEntityToDetailedView(entity));
 		return entity;
 	}
 
-	private SimplifiedContactPersonDTO transformContactEntityToTableView(ContactPerson entity) {
-		modelMapper.getConfiguration().setMatchingStrategy(MatchingStrategies.STRICT);
-		SimplifiedContactPersonDTO dto = modelMapper.map(entity, SimplifiedContactPersonDTO.class);
-		dto.setName(entity.getFirstName() + " " + entity.getLastName());
-		dto.setCompanyName(entity.getCompany().getName());
-		return dto;
+	private void indexContact(ContactPerson entity) {
+		if (entity.getStatus() == Status.ACTIVE) {
+			searchIndex.put(entity.getId(), transformContactEntityToTableView(entity));
+		} else {
+			searchIndex.remove(entity.getId());
+		}
 	}
 
-	private ContactPersonDTO transformContactEntityToDetailedView(ContactPerson entity) {
-		ContactPersonDTO dto = modelMapper.map(entity, ContactPersonDTO.class);
-		dto.setCompanyName(entity.getCompany().getName());
-		return dto;
+	private Specification<ContactPerson> activeContactsAfter(String firstName, String lastName, String email,
+			String phoneNumber, String comment, String cursor) {
+		Specification<ContactPerson> spec = ContactPersonSpecifications.activeMatching(firstName, lastName, email,
+				normalizePhoneNumberFilter(phoneNumber), comment);
+		if (cursor != null && !cursor.isEmpty()) {
+			spec = spec.and(ContactPersonSpecifications.after(ContactCursor.decode(cursor)));
+		}
+		return spec;
 	}
 
-	private ContactPerson transformContactDTOToEntity(ContactPersonDTO dto) {
-		ContactPerson entity = modelMapper.map(dto, ContactPerson.class);
-		entity.setCompany(companyRepository.findByName(dto.getCompanyName()));
-		return entity;
+	private Specification<ContactPerson> activeContactsOfCompany(Long companyId, String firstName, String lastName,
+			String email, String phoneNumber, String comment) {
+		return ContactPersonSpecifications.hasCompany(companyId).and(ContactPersonSpecifications
+				.activeMatching(firstName, lastName, email, normalizePhoneNumberFilter(phoneNumber), comment));
 	}
 
-	private boolean isValidPhoneNumber(String phoneNumber) throws NumberParseException {
-		Phonenumber.PhoneNumber phone = phoneNumberUtil.parse(phoneNumber, "HU");
-		return phoneNumberUtil.isValidNumberForRegion(phone, "HU");
+	private CursorPageDTO<SimplifiedContactPersonDTO> toPage(List<ContactPerson> contacts) {
+		return new CursorPageDTO<>(
+				contacts.stream().map(this::transformContactEntityToTableView).collect(Collectors.toList()), null,
+				fingerprint(contacts));
 	}
 
-	private void throwNotFoundContactException(Long id) throws ContactPersonNotFoundException {
-		if (contactRepo.findById(id).get() == null)
-			throw new ContactPersonNotFoundException("Contact person was not found with this ID");
+	private String fingerprint(Specification<ContactPerson> spec, Pageable page) {
+		return fingerprint(contactRepo.findSliceVersions(spec, page).stream());
 	}
 
-	@PostConstruct
-	private void init() {
-		for (Integer i = 1; i <= 20; i++) {
-			Company company = new Company(new Long(i), "company" + i.toString());
-			ContactPerson contactPerson = new ContactPerson(null, (100 - i) + "First" + i, "Last" + i,
-					i + "asd@gmail.com", "asd" + i, company, null, Status.ACTIVE);
-			companyRepository.save(company);
-			contactRepo.save(contactPerson);
+	/**
+	 * A betlttt sorok ujjlenyomata, ugyangy szmolva, mint a csak a
+	 * verzikat lekrdez vltozat.
+	 */
+	private static String fingerprint(List<ContactPerson> contacts) {
+		return fingerprint(contacts.stream().map(contact -> new Object[] { contact.getId(), contact.getVersion(),
+				contact.getCompany() != null ? contact.getCompany().getName() : null }));
+	}
 
+	private static String fingerprint(Stream<Object[]> rows) {
+		StringBuilder text = new StringBuilder();
+		rows.forEach(row -> text.append(row[0]).append(':').append(row[1]).append(':').append(row[2]).append('\n'));
+		return DigestUtils.md5DigestAsHex(text.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String normalizePhoneNumber(String phoneNumber) throws NumberParseException {
+		Timer.Sample sample = Timer.start(meterRegistry);
+		try {
+			return phoneNumberValidator.normalize(phoneNumber);
+		} finally {
+			sample.stop(phoneValidationTimer);
 		}
 	}
 
+	private String normalizePhoneNumberFilter(String phoneNumber) {
+		return phoneValidationTimer.record(() -> phoneNumberValidator.normalizeIfValid(phoneNumber));
+	}
+
+	private SimplifiedContactPersonDTO transformContactEntityToTableView(ContactPerson entity) {
+		return tableViewMappingTimer.record(() -> contactMapper.toTableView(entity));
+	}
+
+	private ContactPersonDTO transformContactEntityToDetailedView(ContactPerson entity) {
+		return detailedViewMappingTimer.record(() -> contactMapper.toDetailedView(entity));
+	}
+
+	private ContactPerson transformContactDTOToEntity(ContactPersonDTO dto) {
+		ContactPerson entity = entityMappingTimer.record(() -> contactMapper.toEntity(dto));
+		entity.setCompany(companyRepository.findByName(dto.getCompanyName()));
+		return entity;
+	}
+
+	private ContactPerson findContactPerson(Long id) throws ContactPersonNotFoundException {
+		return contactRepo.findById(id).orElseThrow(() -> new ContactPersonNotFoundException(NOT_FOUND_MESSAGE));
+	}
+
 }
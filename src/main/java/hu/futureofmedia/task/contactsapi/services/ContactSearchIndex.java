@@ -0,0 +1,498 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.repositories.ActiveContactSql;
+
+/**
+ * Memriabeli keresindex az aktv kapcsolattartk nevre, e-mail cmre s
+ * cgnevre, eltag s elgpelst tr keresshez.
+ *
+ * A szavak (kisbets, kezet nlkli tokenek) rendezett sztrban vannak,
+ * mindegyikhez a tartalmaz dokumentumok sorszmai nvekv sorrendben, primitv
+ * int tmbben. Az elgpelst tr keresshez a szavak trigramjai a sz
+ * hosszval egytt is indexeltek, a jelltek Levenshtein tvolsggal kerlnek
+ * ellenrzsre.
+ *
+ * A keress nem pti fel a szavak teljes tallati halmazt: a legritkbb
+ * sz listit jrja be nvekv sorrendben, a tbbi szt binris keresssel
+ * ellenrzi, s a krt szm tallat utn megll. Egy eltag legfeljebb
+ * {@value #MAX_PREFIX_TERMS} szra bomlik ki; az ennl tbb szra illeszked
+ * eltag csak szrknt, a dokumentum sajt szavain kerl ellenrzsre, gy
+ * nem vsz el tallat. Ha minden sz ilyen, a dokumentumok sorban kerlnek
+ * ellenrzsre a korlt elrsig. Mdostskor a rgi dokumentum trlt
+ * jellst kap s j kerl a vgre; ha a trlt dokumentumok arnya tl
+ * nagy, az index a trolt dokumentumokbl jrapl.
+ */
+@Component
+public class ContactSearchIndex {
+
+	private static final int MAX_LIMIT = 100;
+	private static final int MIN_FUZZY_LENGTH = 3;
+	private static final int MAX_PREFIX_TERMS = 256;
+	private static final int MIN_COMPACTION = 1000;
+	private static final int FETCH_SIZE = 1000;
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final TreeMap<String, Term> terms = new TreeMap<>();
+	private final List<Term> termsById = new ArrayList<>();
+	private final Map<String, IntList> trigrams = new HashMap<>();
+	private final List<SimplifiedContactPersonDTO> documents = new ArrayList<>();
+	private final List<String[]> documentTerms = new ArrayList<>();
+	private final Map<Long, Integer> documentsByContactId = new HashMap<>();
+	private final BitSet deleted = new BitSet();
+	private long[] contactIds = new long[16];
+	private int deletedCount;
+
+	private NamedParameterJdbcTemplate jdbcTemplate;
+
+	@Autowired
+	public void setDataSource(DataSource dataSource) {
+		JdbcTemplate template = new JdbcTemplate(dataSource);
+		template.setFetchSize(FETCH_SIZE);
+		this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void onApplicationReady() {
+		rebuild();
+	}
+
+	/**
+	 * Az index teljes jraptse az adatbzisbl. Az pts alatt a keressek
+	 * vrakoznak.
+	 */
+	public void rebuild() {
+		ActiveContactSql query = ActiveContactSql.matching(null, null, null, null, null);
+		lock.writeLock().lock();
+		try {
+			clear();
+			jdbcTemplate.query(query.getSql(), query.getParameters(), (RowCallbackHandler) rs -> addDocument(
+					rs.getLong("id"),
+					new SimplifiedContactPersonDTO(rs.getString("first_name") + " " + rs.getString("last_name"),
+							rs.getString("company_name"), rs.getString("email"), rs.getString("phone_number"))));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Kapcsolattart felvtele vagy cserje az indexben. Tranzakcin bell csak
+	 * a sikeres commit utn fut le.
+	 */
+	public void put(Long contactId, SimplifiedContactPersonDTO contact) {
+		afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				removeDocument(contactId);
+				addDocument(contactId, contact);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Kapcsolattart eltvoltsa az indexbl. Tranzakcin bell csak a sikeres
+	 * commit utn fut le.
+	 */
+	public void remove(Long contactId) {
+		afterCommit(() -> {
+			lock.writeLock().lock();
+			try {
+				removeDocument(contactId);
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Keress a lekrdezs szavaira. Minden sznak illeszkednie kell a
+	 * kapcsolattart valamelyik szavra, eltagknt, vagy ha gy nincs elg
+	 * tallat, legfeljebb egy (hat karaktertl kett) elgpelssel. Az
+	 * eltag szerinti tallatok llnak ell.
+	 */
+	public List<SimplifiedContactPersonDTO> search(String query, int limit) {
+		List<String> tokens = tokenize(query);
+		if (tokens.isEmpty() || limit <= 0) {
+			return Collections.emptyList();
+		}
+		int maxResults = Math.min(limit, MAX_LIMIT);
+		lock.readLock().lock();
+		try {
+			List<SimplifiedContactPersonDTO> result = new ArrayList<>(maxResults);
+			Set<Integer> found = new HashSet<>();
+			collect(tokens, false, maxResults, result, found);
+			if (result.size() < maxResults && tokens.stream().anyMatch(token -> token.length() >= MIN_FUZZY_LENGTH)) {
+				collect(tokens, true, maxResults, result, found);
+			}
+			return result;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * A lekrdezs minden szavra illeszked, mg nem tallt dokumentumok
+	 * hozzadsa a tallatokhoz, dokumentumsorrendben, legfeljebb a korltig.
+	 */
+	private void collect(List<String> tokens, boolean fuzzy, int limit, List<SimplifiedContactPersonDTO> result,
+			Set<Integer> found) {
+		List<Postings> tokenPostings = new ArrayList<>(tokens.size());
+		for (String token : tokens) {
+			Postings postings = new Postings();
+			for (Term term : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+				if (postings.lists.size() == MAX_PREFIX_TERMS) {
+					postings.filterByPrefix(token);
+					break;
+				}
+				postings.add(term.postings);
+			}
+			if (fuzzy) {
+				for (Term term : similarTerms(token)) {
+					postings.add(term.postings);
+				}
+			}
+			if (postings.size == 0) {
+				return;
+			}
+			tokenPostings.add(postings);
+		}
+		tokenPostings.sort(Comparator.comparingInt(postings -> postings.size));
+		if (tokenPostings.get(0).prefix != null) {
+			// Csak tl sok szra illeszked eltagok: a dokumentumok sorban.
+			for (int doc = 0; doc < documents.size(); doc++) {
+				if (accept(doc, tokenPostings, limit, result, found)) {
+					return;
+				}
+			}
+			return;
+		}
+		List<IntList> driver = tokenPostings.get(0).lists;
+		List<Postings> others = tokenPostings.subList(1, tokenPostings.size());
+		int[] positions = new int[driver.size()];
+		for (;;) {
+			int doc = Integer.MAX_VALUE;
+			for (int i = 0; i < positions.length; i++) {
+				IntList list = driver.get(i);
+				if (positions[i] < list.size) {
+					doc = Math.min(doc, list.values[positions[i]]);
+				}
+			}
+			if (doc == Integer.MAX_VALUE) {
+				return;
+			}
+			for (int i = 0; i < positions.length; i++) {
+				IntList list = driver.get(i);
+				if (positions[i] < list.size && list.values[positions[i]] == doc) {
+					positions[i]++;
+				}
+			}
+			if (accept(doc, others, limit, result, found)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * A dokumentum hozzadsa, ha minden szra illeszkedik.
+	 *
+	 * @return elrte-e a tallatok szma a korltot
+	 */
+	private boolean accept(int doc, List<Postings> tokenPostings, int limit, List<SimplifiedContactPersonDTO> result,
+			Set<Integer> found) {
+		if (!deleted.get(doc) && containsAll(tokenPostings, doc) && found.add(doc)) {
+			result.add(documents.get(doc));
+		}
+		return result.size() >= limit;
+	}
+
+	private boolean containsAll(List<Postings> tokenPostings, int doc) {
+		for (Postings postings : tokenPostings) {
+			if (!postings.contains(doc, documentTerms.get(doc))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * A megengedett tvolsgon belli szavak. Egy elgpels legfeljebb hrom
+	 * trigramot ront el, gy a hasonl hosszsg jellteknek a sz trigramjai
+	 * kzl legalbb {@code n - 3 * tvolsg} darabbal kell osztozniuk. Ezrt
+	 * elg a jellteket a legrvidebb {@code 3 * tvolsg + 1} listbl venni, a
+	 * gyakori trigramok hossz listi kimaradnak.
+	 */
+	private List<Term> similarTerms(String token) {
+		if (token.length() < MIN_FUZZY_LENGTH) {
+			return Collections.emptyList();
+		}
+		int maxDistance = token.length() <= 5 ? 1 : 2;
+		List<String> tokenTrigrams = trigrams(token);
+		int minShared = Math.max(1, tokenTrigrams.size() - 3 * maxDistance);
+		int candidateLists = tokenTrigrams.size() - minShared + 1;
+		Set<Integer> candidates = new HashSet<>();
+		List<Term> result = new ArrayList<>();
+		for (int length = token.length() - maxDistance; length <= token.length() + maxDistance; length++) {
+			List<IntList> lists = new ArrayList<>(tokenTrigrams.size());
+			for (String trigram : tokenTrigrams) {
+				lists.add(trigrams.getOrDefault(trigram + length, IntList.EMPTY));
+			}
+			lists.sort(Comparator.comparingInt(list -> list.size));
+			for (IntList termIds : lists.subList(0, candidateLists)) {
+				for (int i = 0; i < termIds.size; i++) {
+					Term term = termsById.get(termIds.values[i]);
+					if (candidates.add(term.id) && withinDistance(token, term.text, maxDistance)) {
+						result.add(term);
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private void addDocument(long contactId, SimplifiedContactPersonDTO contact) {
+		int doc = documents.size();
+		documents.add(contact);
+		if (doc == contactIds.length) {
+			contactIds = Arrays.copyOf(contactIds, doc * 2);
+		}
+		contactIds[doc] = contactId;
+		documentsByContactId.put(contactId, doc);
+		Set<String> texts = new LinkedHashSet<>();
+		texts.addAll(tokenize(contact.getName()));
+		texts.addAll(tokenize(contact.getEmail()));
+		texts.addAll(tokenize(contact.getCompanyName()));
+		String[] docTerms = new String[texts.size()];
+		int i = 0;
+		for (String text : texts) {
+			Term term = term(text);
+			term.postings.add(doc);
+			docTerms[i++] = term.text;
+		}
+		documentTerms.add(docTerms);
+	}
+
+	private void removeDocument(Long contactId) {
+		Integer doc = documentsByContactId.remove(contactId);
+		if (doc == null) {
+			return;
+		}
+		deleted.set(doc);
+		deletedCount++;
+		if (deletedCount >= MIN_COMPACTION && deletedCount > documents.size() / 4) {
+			compact();
+		}
+	}
+
+	private void compact() {
+		List<SimplifiedContactPersonDTO> liveDocuments = new ArrayList<>(documents.size() - deletedCount);
+		long[] liveContactIds = new long[documents.size() - deletedCount];
+		for (int doc = deleted.nextClearBit(0); doc < documents.size(); doc = deleted.nextClearBit(doc + 1)) {
+			liveContactIds[liveDocuments.size()] = contactIds[doc];
+			liveDocuments.add(documents.get(doc));
+		}
+		clear();
+		for (int i = 0; i < liveDocuments.size(); i++) {
+			addDocument(liveContactIds[i], liveDocuments.get(i));
+		}
+	}
+
+	private void clear() {
+		terms.clear();
+		termsById.clear();
+		trigrams.clear();
+		documents.clear();
+		documentTerms.clear();
+		documentsByContactId.clear();
+		deleted.clear();
+		deletedCount = 0;
+		contactIds = new long[16];
+	}
+
+	private Term term(String text) {
+		Term term = terms.get(text);
+		if (term == null) {
+			term = new Term(termsById.size(), text);
+			terms.put(text, term);
+			termsById.add(term);
+			for (String trigram : trigrams(text)) {
+				trigrams.computeIfAbsent(trigram + text.length(), key -> new IntList()).add(term.id);
+			}
+		}
+		return term;
+	}
+
+	private void afterCommit(Runnable action) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					action.run();
+				}
+			});
+		} else {
+			action.run();
+		}
+	}
+
+	static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		String normalized = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+		for (String token : SEPARATORS.split(normalized)) {
+			if (!token.isEmpty()) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	static List<String> trigrams(String term) {
+		String padded = "$" + term + "$";
+		List<String> result = new ArrayList<>(padded.length() - 2);
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			result.add(padded.substring(i, i + 3));
+		}
+		return result;
+	}
+
+	static boolean withinDistance(String a, String b, int maxDistance) {
+		if (Math.abs(a.length() - b.length()) > maxDistance) {
+			return false;
+		}
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			int rowMinimum = i;
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+				rowMinimum = Math.min(rowMinimum, current[j]);
+			}
+			if (rowMinimum > maxDistance) {
+				return false;
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()] <= maxDistance;
+	}
+
+	private static final class Term {
+
+		private final int id;
+		private final String text;
+		private final IntList postings = new IntList();
+
+		private Term(int id, String text) {
+			this.id = id;
+			this.text = text;
+		}
+
+	}
+
+	private static final class IntList {
+
+		private static final IntList EMPTY = new IntList();
+
+		private int[] values = new int[1];
+		private int size;
+
+		private void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		private boolean contains(int value) {
+			return Arrays.binarySearch(values, 0, size, value) >= 0;
+		}
+
+	}
+
+	/**
+	 * Egy lekrdezsi szra illeszked szavak dokumentumlisti. Tl sok szra
+	 * illeszked eltag esetn a listk helyett az eltag, amely a dokumentum
+	 * sajt szavain kerl ellenrzsre; ilyenkor a lista nem lehet a bejrs
+	 * alapja.
+	 */
+	private static final class Postings {
+
+		private final List<IntList> lists = new ArrayList<>();
+		private int size;
+		private String prefix;
+
+		private void add(IntList postings) {
+			lists.add(postings);
+			if (prefix == null) {
+				size += postings.size;
+			}
+		}
+
+		private void filterByPrefix(String prefix) {
+			this.prefix = prefix;
+			lists.clear();
+			size = Integer.MAX_VALUE;
+		}
+
+		private boolean contains(int doc, String[] docTerms) {
+			if (prefix != null) {
+				for (String term : docTerms) {
+					if (term.startsWith(prefix)) {
+						return true;
+					}
+				}
+			}
+			for (IntList list : lists) {
+				if (list.contains(doc)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,79 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.futureofmedia.task.contactsapi.entities.Company;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.entities.Status;
+import hu.futureofmedia.task.contactsapi.repositories.CompanyRepository;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonReporsitory;
+
+/**
+ * Plda adatok (20 cg s kapcsolattart) betltse a {@code demo}
+ * profillal, egy tranzakciban, batch-ben. Ha mr van cg az adatbzisban,
+ * nem tlt be semmit. A futs a keresindex felptse eltt trtnik.
+ */
+@Component
+@Profile("demo")
+public class DemoDataSeeder implements ApplicationRunner {
+
+	private static final int COUNT = 20;
+
+	private CompanyRepository companyRepository;
+	private ContactPersonReporsitory contactRepo;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	public void setCompanyRepository(CompanyRepository companyRepository) {
+		this.companyRepository = companyRepository;
+	}
+
+	@Autowired
+	public void setContactRepo(ContactPersonReporsitory contactRepo) {
+		this.contactRepo = contactRepo;
+	}
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (companyRepository.count() > 0) {
+			return;
+		}
+		transactionTemplate.executeWithoutResult(status -> seed());
+	}
+
+	private void seed() {
+		List<Object[]> companyRows = new ArrayList<>(COUNT);
+		List<ContactPerson> contacts = new ArrayList<>(COUNT);
+		for (int i = 1; i <= COUNT; i++) {
+			Company company = new Company((long) i, "company" + i);
+			companyRows.add(new Object[] { company.getId(), company.getName() });
+			contacts.add(new ContactPerson(null, (100 - i) + "First" + i, "Last" + i, i + "asd@gmail.com", "asd" + i,
+					company, null, Status.ACTIVE));
+		}
+		// A cgek azonostja adott, a JPA ments soronknt ellenrizn a ltezsket.
+		jdbcTemplate.batchUpdate("insert into company (id, name) values (?, ?)", companyRows);
+		contactRepo.saveAll(contacts);
+	}
+
+}
@@ -0,0 +1,32 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import org.springframework.http.MediaType;
+
+public enum ExportFormat {
+	NDJSON(MediaType.APPLICATION_NDJSON, "ndjson"), CSV(new MediaType("text", "csv"), "csv");
+
+	private final MediaType mediaType;
+	private final String extension;
+
+	ExportFormat(MediaType mediaType, String extension) {
+		this.mediaType = mediaType;
+		this.extension = extension;
+	}
+
+	public MediaType getMediaType() {
+		return mediaType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public static ExportFormat fromParameter(String value) {
+		for (ExportFormat format : values()) {
+			if (format.extension.equalsIgnoreCase(value)) {
+				return format;
+			}
+		}
+		throw new IllegalArgumentException("Unsupported export format: " + value);
+	}
+}
@@ -0,0 +1,180 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.mappers.ContactPersonMapper;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonReporsitory;
+
+/**
+ * Egyszeri adatmigrci: a korbban, normalizls nlkl mentett
+ * telefonszmok E.164 formtumra alaktsa, hogy a normalizlt szmmal val
+ * szrs a rgi sorokat is megtallja. Csak a nem {@code +} jellel kezdd
+ * szmokat nzi, azonost szerint csomagonknt. Az rvnytelen s a
+ * normalizls utn tkz szmok vltozatlanok maradnak, szmukat naplzza.
+ * Minden trt kapcsolattart UPDATE bejegyzst kap a vltozsnaplban.
+ *
+ * A befejezst a data_migration tbla jegyzi fel, a tovbbi indulsok csak
+ * ezt az egy sort olvassk. Egyszerre indul pldnyok esetn a munka
+ * megismtldhet, de egy szm csak egyszer rdik t. A keresindex
+ * felptse eltt fut.
+ *
+ * Kikapcsols: {@code contacts.phone.backfill.enabled=false}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@ConditionalOnProperty(name = "contacts.phone.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class PhoneNumberBackfill implements ApplicationRunner {
+
+	public static final String MIGRATION = "phone-number-e164";
+
+	private static final Logger log = LoggerFactory.getLogger(PhoneNumberBackfill.class);
+	private static final int CHUNK_SIZE = 1000;
+	private static final String SELECT_CHUNK = "select id, phone_number from contact_person "
+			+ "where id > ? and phone_number not like '+%' order by id limit " + CHUNK_SIZE;
+	private static final String COMPLETED = "select count(*) from data_migration where name = ?";
+	private static final String MARK_COMPLETED = "insert into data_migration (name, completed_at) values (?, ?)";
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+
+	@Autowired
+	private PhoneNumberValidator phoneNumberValidator;
+
+	@Autowired
+	private ContactPersonReporsitory contactRepo;
+
+	@Autowired
+	private ContactPersonMapper contactMapper;
+
+	@Autowired
+	private ContactChangeLog changeLog;
+
+	@Autowired
+	public void setJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	@Autowired
+	public void setTransactionManager(PlatformTransactionManager transactionManager) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (jdbcTemplate.queryForObject(COMPLETED, Integer.class, MIGRATION) > 0) {
+			return;
+		}
+		backfill();
+		try {
+			jdbcTemplate.update(MARK_COMPLETED, MIGRATION, new Timestamp(System.currentTimeMillis()));
+		} catch (DataIntegrityViolationException e) {
+			// Egy msik pldny kzben befejezte.
+		}
+	}
+
+	/**
+	 * A migrci futtatsa a befejezs feljegyzse nlkl.
+	 *
+	 * @return az talaktott telefonszmok szma
+	 */
+	public int backfill() {
+		int normalized = 0;
+		int skipped = 0;
+		long lastId = 0;
+		List<Object[]> rows;
+		do {
+			rows = jdbcTemplate.query(SELECT_CHUNK,
+					(rs, rowNum) -> new Object[] { rs.getLong("id"), rs.getString("phone_number") }, lastId);
+			if (rows.isEmpty()) {
+				break;
+			}
+			lastId = (Long) rows.get(rows.size() - 1)[0];
+			List<PhoneNumberValidator.Result> results = phoneNumberValidator
+					.validateAll(rows.stream().map(row -> (String) row[1]).collect(Collectors.toList()));
+			Map<Long, String> chunk = new HashMap<>();
+			for (int i = 0; i < rows.size(); i++) {
+				if (results.get(i).isValid()) {
+					chunk.put((Long) rows.get(i)[0], results.get(i).getNormalized());
+				}
+			}
+			skipped += rows.size() - chunk.size();
+			int updated = update(chunk);
+			normalized += updated;
+			skipped += chunk.size() - updated;
+		} while (rows.size() == CHUNK_SIZE);
+		if (normalized > 0 || skipped > 0) {
+			log.info("Normalized {} stored phone numbers to E.164, left {} invalid or conflicting ones unchanged",
+					normalized, skipped);
+		}
+		return normalized;
+	}
+
+	private int update(Map<Long, String> chunk) {
+		if (chunk.isEmpty()) {
+			return 0;
+		}
+		try {
+			return transactionTemplate.execute(status -> normalize(chunk));
+		} catch (DataIntegrityViolationException e) {
+			// Kt rgi szm azonos E.164 alak, soronknt jra, az tkz marad.
+			int updated = 0;
+			for (Map.Entry<Long, String> row : chunk.entrySet()) {
+				try {
+					updated += transactionTemplate.execute(
+							status -> normalize(Collections.singletonMap(row.getKey(), row.getValue())));
+				} catch (DataIntegrityViolationException rowError) {
+					log.warn("Phone number of contact {} conflicts with another contact after normalization",
+							row.getKey());
+				}
+			}
+			return updated;
+		}
+	}
+
+	/**
+	 * A szmok trsa a betlttt entitsokon, gy a verzit a Hibernate
+	 * nveli, a vltozsnapl pedig a mdostott adatokat kapja.
+	 */
+	private int normalize(Map<Long, String> phoneNumbers) {
+		Date now = new Date();
+		List<ContactPerson> changed = new ArrayList<>(phoneNumbers.size());
+		for (ContactPerson contact : contactRepo.findAllById(phoneNumbers.keySet())) {
+			// Az olvass ta ms pldny vagy krs mr trhatta.
+			if (contact.getPhoneNumber() != null && !contact.getPhoneNumber().startsWith("+")) {
+				contact.setPhoneNumber(phoneNumbers.get(contact.getId()));
+				contact.setLastModified(now);
+				changed.add(contact);
+			}
+		}
+		contactRepo.flush();
+		for (ContactPerson contact : changed) {
+			changeLog.record(ChangeType.UPDATE, contact.getId(), contact.getVersion(),
+					contactMapper.toDetailedView(contact));
+		}
+		return changed.size();
+	}
+
+}
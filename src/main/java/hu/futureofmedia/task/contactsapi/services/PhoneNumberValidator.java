@@ -0,0 +1,135 @@
+package hu.futureofmedia.task.contactsapi.services;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.i18n.phonenumbers.NumberParseException;
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.google.i18n.phonenumbers.Phonenumber;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Telefonszmok ellenrzse s E.164 formtumra alaktsa. Az orszgkd
+ * nlkli szmok a belltott rgi szerint rtelmezdnek. Az eredmnyek
+ * (a hibsak is) mretkorltos cache-be kerlnek, gy az ismtld szmok
+ * csak egyszer kerlnek feldolgozsra. Tmeges betltshez sajt fork-join
+ * poolon, prhuzamosan ellenriz.
+ */
+@Component
+public class PhoneNumberValidator {
+
+	private static final String INVALID_MESSAGE = "The phone number is invalid.";
+	private static final String NULL_MESSAGE = "The phone number supplied was null.";
+
+	private static PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
+
+	private final String defaultRegion;
+	private final LoadingCache<String, Result> results;
+	private final ForkJoinPool pool;
+
+	public PhoneNumberValidator(@Value("${contacts.phone.default-region:HU}") String defaultRegion,
+			@Value("${contacts.phone.cache-size:10000}") long cacheSize,
+			@Value("${contacts.phone.parallelism:0}") int parallelism) {
+		this.defaultRegion = defaultRegion;
+		this.results = Caffeine.newBuilder().maximumSize(cacheSize).recordStats().build(this::parse);
+		this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+	}
+
+	@Autowired(required = false)
+	public void setMeterRegistry(MeterRegistry meterRegistry) {
+		CaffeineCacheMetrics.monitor(meterRegistry, results, "phoneNumbers");
+	}
+
+	/**
+	 * A szm E.164 formtumban.
+	 *
+	 * @throws NumberParseException ha a szm nem rtelmezhet vagy nem rvnyes
+	 */
+	public String normalize(String phoneNumber) throws NumberParseException {
+		Result result = validate(phoneNumber);
+		if (!result.isValid()) {
+			throw new NumberParseException(NumberParseException.ErrorType.NOT_A_NUMBER, result.getError());
+		}
+		return result.getNormalized();
+	}
+
+	/**
+	 * Szrfelttelhez: a normalizlt szm, ha rvnyes, egybknt a kapott
+	 * rtk vltozatlanul.
+	 */
+	public String normalizeIfValid(String phoneNumber) {
+		if (phoneNumber == null) {
+			return null;
+		}
+		Result result = validate(phoneNumber);
+		return result.isValid() ? result.getNormalized() : phoneNumber;
+	}
+
+	public Result validate(String phoneNumber) {
+		if (phoneNumber == null) {
+			return new Result(null, NULL_MESSAGE);
+		}
+		return results.get(phoneNumber);
+	}
+
+	/**
+	 * A szmok prhuzamos ellenrzse, az eredmnyek a bemenet sorrendjben.
+	 */
+	public List<Result> validateAll(List<String> phoneNumbers) {
+		return pool.submit(() -> phoneNumbers.parallelStream().map(this::validate).collect(Collectors.toList()))
+				.join();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private Result parse(String phoneNumber) {
+		try {
+			Phonenumber.PhoneNumber phone = phoneNumberUtil.parse(phoneNumber, defaultRegion);
+			if (!phoneNumberUtil.isValidNumber(phone)) {
+				return new Result(null, INVALID_MESSAGE);
+			}
+			return new Result(phoneNumberUtil.format(phone, PhoneNumberUtil.PhoneNumberFormat.E164), null);
+		} catch (NumberParseException e) {
+			return new Result(null, e.getMessage());
+		}
+	}
+
+	public static final class Result {
+
+		private final String normalized;
+		private final String error;
+
+		private Result(String normalized, String error) {
+			this.normalized = normalized;
+			this.error = error;
+		}
+
+		public boolean isValid() {
+			return normalized != null;
+		}
+
+		public String getNormalized() {
+			return normalized;
+		}
+
+		public String getError() {
+			return error;
+		}
+
+	}
+
+}
@@ -0,0 +1,15 @@
+-- Full-text index on contact_person.comment for local H2 runs.
+-- Runs after Hibernate created the tables (spring.jpa.defer-datasource-initialization).
+-- Test contexts may share the in-memory database, so any earlier index is dropped first.
+CREATE ALIAS IF NOT EXISTS FT_INIT FOR "org.h2.fulltext.FullText.init";
+CALL FT_INIT();
+CALL FT_DROP_ALL();
+CALL FT_INIT();
+CALL FT_CREATE_INDEX('PUBLIC', 'CONTACT_PERSON', 'COMMENT');
+
+-- Lock row of the change log writer (ContactChangeLog).
+CREATE TABLE IF NOT EXISTS CONTACT_CHANGE_WRITER (ID INT PRIMARY KEY);
+MERGE INTO CONTACT_CHANGE_WRITER KEY (ID) VALUES (1);
+
+-- Completed one-off data migrations (PhoneNumberBackfill).
+CREATE TABLE IF NOT EXISTS DATA_MIGRATION (NAME VARCHAR(100) PRIMARY KEY, COMPLETED_AT TIMESTAMP NOT NULL);
@@ -0,0 +1,95 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
+import hu.futureofmedia.task.contactsapi.services.ContactChangeLog;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ContactChangeLogTest {
+
+	private EmbeddedDatabase database;
+	private volatile boolean databaseDown;
+	private SimpleMeterRegistry meterRegistry;
+	private ContactChangeLog changeLog;
+
+	@BeforeEach
+	void setUp() {
+		database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName("changelog").build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("create table contact_change (id bigint primary key, contact_id bigint, "
+				+ "type varchar(20), contact_version bigint, changed_at timestamp, payload clob)");
+		jdbcTemplate.execute("create table contact_change_writer (id int primary key)");
+		jdbcTemplate.update("insert into contact_change_writer values (1)");
+
+		DataSource dataSource = new DelegatingDataSource(database) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				if (databaseDown) {
+					throw new SQLException("Connection refused", "08001");
+				}
+				return super.getConnection();
+			}
+		};
+		meterRegistry = new SimpleMeterRegistry();
+		changeLog = new ContactChangeLog(2, Duration.ofHours(1));
+		changeLog.setJdbcTemplate(new JdbcTemplate(dataSource));
+		changeLog.setTransactionManager(new DataSourceTransactionManager(dataSource));
+		changeLog.setMeterRegistry(meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		database.shutdown();
+	}
+
+	@Test
+	void changesOverTheCapacityAreDroppedAndCounted() {
+		for (long id = 1; id <= 3; id++) {
+			changeLog.record(ChangeType.DELETE, id, 1L, null);
+		}
+
+		assertThat(meterRegistry.get("contacts.audit.queue").gauge().value()).isEqualTo(2);
+		assertThat(meterRegistry.get("contacts.audit.rejected").functionCounter().count()).isEqualTo(1);
+		changeLog.flush();
+		assertThat(count()).isEqualTo(2);
+	}
+
+	@Test
+	void batchIsKeptWhileTheDatabaseIsDown() {
+		changeLog.record(ChangeType.DELETE, 1L, 1L, null);
+		changeLog.record(ChangeType.DELETE, 2L, 1L, null);
+		databaseDown = true;
+		for (int attempt = 0; attempt < 5; attempt++) {
+			assertThatThrownBy(changeLog::flush).isInstanceOf(RuntimeException.class);
+		}
+
+		databaseDown = false;
+		changeLog.flush();
+
+		assertThat(count()).isEqualTo(2);
+		assertThat(meterRegistry.get("contacts.audit.rejected").functionCounter().count()).isZero();
+	}
+
+	private int count() {
+		return new JdbcTemplate(database).queryForObject("select count(*) from contact_change", Integer.class);
+	}
+
+}
@@ -0,0 +1,97 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonReporsitory;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonSpecifications;
+import hu.futureofmedia.task.contactsapi.services.ContactExportService;
+import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("demo")
+class ContactExportServiceTest {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private ContactPersonService contactService;
+
+	@Autowired
+	private ContactPersonReporsitory contactRepo;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		create("Smith, \"Jr\"", "export1@gmail.com", "+36 30 123 4611", "company7");
+		create("Multi\nLine", "export2@gmail.com", "+36 30 123 4612", "company8");
+	}
+
+	@Test
+	void csvFieldsAreQuotedAndFiltered() throws Exception {
+		String csv = export(get("/contacts/export").param("format", "csv").param("last-name", "Exported"));
+
+		assertThat(csv).startsWith(ContactExportService.CSV_HEADER + "\r\n")
+				.contains("\"Smith, \"\"Jr\"\" Exported\",company7,export1@gmail.com,+36301234611\r\n")
+				.contains("\"Multi\nLine Exported\",company8,export2@gmail.com,+36301234612\r\n");
+		assertThat(csv.split("\r\n")).hasSize(3);
+	}
+
+	@Test
+	void ndjsonIsStreamedWithTheFilters() throws Exception {
+		String ndjson = export(get("/contacts/export").param("email", "export2@gmail.com"));
+
+		String[] lines = ndjson.trim().split("\n");
+		assertThat(lines).hasSize(1);
+		JsonNode contact = objectMapper.readTree(lines[0]);
+		assertThat(contact.get("name").asText()).isEqualTo("Multi\nLine Exported");
+		assertThat(contact.get("companyName").asText()).isEqualTo("company8");
+		assertThat(contact.get("phoneNumber").asText()).isEqualTo("+36301234612");
+	}
+
+	private String export(MockHttpServletRequestBuilder builder) throws Exception {
+		MvcResult result = mvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		assertThat(result.getRequest().getAsyncContext().getTimeout()).as("async timeout of the export").isNegative();
+		return mvc.perform(asyncDispatch(result)).andExpect(status().isOk()).andReturn().getResponse()
+				.getContentAsString(StandardCharsets.UTF_8);
+	}
+
+	private void create(String firstName, String email, String phoneNumber, String companyName) throws Exception {
+		if (contactRepo.count(ContactPersonSpecifications.activeMatching(null, null, email, null, null)) > 0) {
+			return;
+		}
+		ContactPersonDTO dto = new ContactPersonDTO();
+		dto.setFirstName(firstName);
+		dto.setLastName("Exported");
+		dto.setEmail(email);
+		dto.setPhoneNumber(phoneNumber);
+		dto.setCompanyName(companyName);
+		ContactPerson contact = contactService.createContactPerson(dto);
+		assertThat(contact.getId()).isNotNull();
+	}
+
+}
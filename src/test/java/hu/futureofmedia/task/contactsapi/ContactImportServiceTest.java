@@ -0,0 +1,69 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactImportErrorDTO;
+import hu.futureofmedia.task.contactsapi.dto.ContactImportResultDTO;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonReporsitory;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonSpecifications;
+import hu.futureofmedia.task.contactsapi.services.ContactImportService;
+
+@SpringBootTest
+@ActiveProfiles("demo")
+class ContactImportServiceTest {
+
+	@Autowired
+	private ContactImportService importService;
+
+	@Autowired
+	private ContactPersonReporsitory contactRepo;
+
+	@Test
+	void validRowsAreImportedAndInvalidRowsReported() throws Exception {
+		String body = row("Import", "One", "import1@gmail.com", "+36 30 123 4601", "company1") + "\n"
+				+ row("Import", "Two", "import2@gmail.com", "+36 30 123", "company2") + "\n"
+				+ row("Import", "Three", "import3@gmail.com", "06 30 123 4603", "company3") + "\n"
+				+ row("Import", "Four", "import1@gmail.com", "+36 30 123 4604", "company4") + "\n"
+				+ row("Import", "Five", "import5@gmail.com", "+36 30 123 4605", "no such company") + "\n"
+				+ row("Import", "Six", "import6@gmail.com", "+36 30 123 4606", "company6") + "\n";
+
+		ContactImportResultDTO result = importService
+				.importContacts(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(result.getImported()).isEqualTo(3);
+		assertThat(result.getFailed()).isEqualTo(3);
+		assertThat(result.getErrors()).extracting(ContactImportErrorDTO::getRow, ContactImportErrorDTO::getMessage)
+				.containsExactlyInAnyOrder(tuple(2L, "The phone number is invalid."),
+						tuple(4L, "The email or phone number is already in use."),
+						tuple(5L, "Company was not found with this name: no such company"));
+		// A 4. sor tkzse miatt a csomag soronknt kerlt be, az rvnyes sorok megmaradtak.
+		assertThat(findByEmail("import1@gmail.com").getLastName()).isEqualTo("One");
+		assertThat(findByEmail("import3@gmail.com").getPhoneNumber()).isEqualTo("+36301234603");
+		assertThat(findByEmail("import6@gmail.com").getLastName()).isEqualTo("Six");
+		assertThat(contactRepo.count(ContactPersonSpecifications.activeMatching(null, null, "import5@gmail.com",
+				null, null))).isZero();
+	}
+
+	private static String row(String firstName, String lastName, String email, String phoneNumber,
+			String companyName) {
+		return String.format(
+				"{\"firstName\":\"%s\",\"lastName\":\"%s\",\"email\":\"%s\",\"phoneNumber\":\"%s\","
+						+ "\"companyName\":\"%s\"}",
+				firstName, lastName, email, phoneNumber, companyName);
+	}
+
+	private ContactPerson findByEmail(String email) {
+		return contactRepo.findOne(ContactPersonSpecifications.activeMatching(null, null, email, null, null)).get();
+	}
+
+}
@@ -0,0 +1,106 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+
+/**
+ * A listzs Hibernate ltal generlt, paramteres utastsnak vgrehajtsi
+ * terve. Az utastst egy StatementInspector rgzti, a paramterek a
+ * felttelek oszlopai szerint kapnak rtket.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+		+ "hu.futureofmedia.task.contactsapi.ContactListQueryPlanTest$CapturingStatementInspector")
+class ContactListQueryPlanTest {
+
+	private static final String LIST_INDEX = "IDX_CONTACT_PERSON_NAME";
+	private static final int PAGE_SIZE = 10;
+	private static final Pattern PARAMETER = Pattern.compile("(\\w+)\\s*=\\s*\\?|\\?");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private ContactPersonService contactService;
+
+	@Test
+	void activeListIsReadInIndexOrder() {
+		String plan = explainListQuery(() -> contactService.getActiveContacts(null, null, null, null, null, 0),
+				Collections.emptyMap());
+		assertThat(plan).contains(LIST_INDEX).contains("index sorted").doesNotContain("tableScan");
+	}
+
+	@Test
+	void firstNameFilterSeeksIntoIndex() {
+		String plan = explainListQuery(() -> contactService.getActiveContacts("John", null, null, null, null, 0),
+				Collections.singletonMap("first_name", "John"));
+		assertThat(plan).contains(LIST_INDEX).contains("index sorted").doesNotContain("tableScan");
+	}
+
+	@Test
+	void emailFilterSeeksTheUniqueEmailIndex() {
+		String emailIndex = jdbcTemplate.queryForObject("SELECT i.INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES i "
+				+ "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c ON c.INDEX_SCHEMA = i.INDEX_SCHEMA "
+				+ "AND c.INDEX_NAME = i.INDEX_NAME WHERE i.TABLE_NAME = 'CONTACT_PERSON' "
+				+ "AND i.INDEX_TYPE_NAME = 'UNIQUE INDEX' AND c.COLUMN_NAME = 'EMAIL'", String.class);
+		String plan = explainListQuery(
+				() -> contactService.getActiveContacts(null, null, "john@gmail.com", null, null, 0),
+				Collections.singletonMap("email", "john@gmail.com"));
+		assertThat(plan).contains(emailIndex + ": EMAIL =").doesNotContain(LIST_INDEX).doesNotContain("tableScan");
+	}
+
+	/**
+	 * A listzs futtatsa, majd a kzben generlt, contact_person tblt
+	 * olvas utasts terve. Az {@code oszlop = ?} paramterek a megadott
+	 * rtket, a sttusz ACTIVE-ot, a limit az oldalmretet kapja.
+	 */
+	private String explainListQuery(Runnable listing, Map<String, Object> values) {
+		CapturingStatementInspector.STATEMENTS.clear();
+		listing.run();
+		List<String> statements = CapturingStatementInspector.STATEMENTS.stream()
+				.filter(sql -> sql.toLowerCase().contains("from contact_person")).collect(Collectors.toList());
+		assertThat(statements).as("generated list statement").hasSize(1);
+		String sql = statements.get(0);
+		List<Object> parameters = new ArrayList<>();
+		Matcher matcher = PARAMETER.matcher(sql);
+		while (matcher.find()) {
+			String column = matcher.group(1) != null ? matcher.group(1).toLowerCase() : null;
+			if (column == null) {
+				parameters.add(PAGE_SIZE);
+			} else if (column.equals("status")) {
+				parameters.add("ACTIVE");
+			} else {
+				assertThat(values).as("value of " + column).containsKey(column);
+				parameters.add(values.get(column));
+			}
+		}
+		return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, parameters.toArray());
+	}
+
+	public static class CapturingStatementInspector implements StatementInspector {
+
+		private static final List<String> STATEMENTS = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public String inspect(String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+
+	}
+
+}
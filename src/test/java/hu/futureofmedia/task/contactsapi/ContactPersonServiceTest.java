@@ -0,0 +1,329 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactChangeDTO;
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.CursorPageDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
+import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.entities.Status;
+import hu.futureofmedia.task.contactsapi.exceptions.ContactPersonNotFoundException;
+import hu.futureofmedia.task.contactsapi.repositories.CompanyRepository;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonReporsitory;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonSpecifications;
+import hu.futureofmedia.task.contactsapi.services.ContactChangeLog;
+import hu.futureofmedia.task.contactsapi.services.ContactField;
+import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+import hu.futureofmedia.task.contactsapi.services.PhoneNumberBackfill;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("demo")
+class ContactPersonServiceTest {
+
+	@Autowired
+	private ContactPersonService contactService;
+
+	@Autowired
+	private ContactPersonReporsitory contactRepo;
+
+	@Autowired
+	private CompanyRepository companyRepository;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private ContactChangeLog changeLog;
+
+	@Autowired
+	private PhoneNumberBackfill phoneNumberBackfill;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void listPageIsLoadedWithOneStatement() {
+		statistics.clear();
+
+		List<SimplifiedContactPersonDTO> page = contactService.getActiveContacts(null, null, null, null, null, 0);
+
+		assertThat(page).hasSize(10).allSatisfy(contact -> assertThat(contact.getCompanyName()).isNotNull());
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void cursorPageIsLoadedWithOneStatement() {
+		String cursor = contactService.getActiveContactsAfter(null, null, null, null, null, "").getNextCursor();
+		statistics.clear();
+
+		CursorPageDTO<SimplifiedContactPersonDTO> page = contactService.getActiveContactsAfter(null, null, null, null,
+				null, cursor);
+
+		assertThat(page.getContent()).isNotEmpty();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void loadedPageHasTheSameFingerprintAsTheVersionQuery() {
+		assertThat(contactService.getActiveContactsPage(null, null, null, null, null, 0).getFingerprint())
+				.isEqualTo(contactService.getActiveContactsFingerprint(null, null, null, null, null, 0));
+	}
+
+	@Test
+	void detailViewIsLoadedWithOneStatement() throws Exception {
+		Long id = findIdByEmail("3asd@gmail.com");
+		statistics.clear();
+
+		ContactPersonDTO dto = contactService.getDetailedContactPerson(id);
+
+		assertThat(dto.getCompanyName()).isEqualTo("company3");
+		assertThat(dto.getId()).isEqualTo(id);
+		assertThat(dto.getVersion()).isNotNull();
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void detailViewIsServedFromCacheUntilUpdated() throws Exception {
+		Long id = findIdByEmail("6asd@gmail.com");
+		String comment = contactService.getDetailedContactPerson(id).getComment();
+		statistics.clear();
+
+		ContactPersonDTO cached = contactService.getDetailedContactPerson(id);
+		assertThat(cached.getEmail()).isEqualTo("6asd@gmail.com");
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+		cached.setComment("Changed by the caller");
+		assertThat(contactService.getDetailedContactPerson(id).getComment()).isEqualTo(comment);
+
+		ContactPersonDTO update = new ContactPersonDTO();
+		update.setFirstName(cached.getFirstName());
+		update.setLastName(cached.getLastName());
+		update.setEmail(cached.getEmail());
+		update.setCompanyName(cached.getCompanyName());
+		update.setComment("Cached");
+		update.setPhoneNumber("+36 30 123 4506");
+		contactService.updateContactPerson(id, update, null);
+		statistics.clear();
+
+		assertThat(contactService.getDetailedContactPerson(id).getComment()).isEqualTo("Cached");
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+	}
+
+	@Test
+	void softDeleteIsOneUpdateStatement() throws Exception {
+		Long id = findIdByEmail("5asd@gmail.com");
+		statistics.clear();
+
+		contactService.deleteContactPersonById(id);
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThat(contactRepo.findById(id).get().getStatus()).isEqualTo(Status.DELETED);
+		assertThatThrownBy(() -> contactService.deleteContactPersonById(id))
+				.isInstanceOf(ContactPersonNotFoundException.class);
+	}
+
+	@Test
+	void updateLoadsTheContactOnce() throws Exception {
+		Long id = findIdByEmail("4asd@gmail.com");
+		ContactPersonDTO dto = contactService.getDetailedContactPerson(id);
+		dto.setComment("Updated");
+		dto.setPhoneNumber("+36 30 123 4504");
+		companyRepository.findByName(dto.getCompanyName());
+		statistics.clear();
+
+		contactService.updateContactPerson(id, dto, null);
+
+		// contact select, update; the company comes from the cache
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+		assertThat(contactRepo.findById(id).get().getComment()).isEqualTo("Updated");
+	}
+
+	@Test
+	void companyLookupIsCached() {
+		companyRepository.findByName("company7");
+		statistics.clear();
+
+		assertThat(companyRepository.findByName("company7").getName()).isEqualTo("company7");
+		assertThat(statistics.getPrepareStatementCount()).isZero();
+	}
+
+	@Test
+	void updateChangesVersionAndListFingerprint() throws Exception {
+		Long id = findIdByEmail("8asd@gmail.com");
+		Long version = contactService.getContactPersonVersion(id).getVersion();
+		String fingerprint = contactService.getActiveContactsFingerprint(null, null, "8asd@gmail.com", null, null, 0);
+		ContactPersonDTO dto = contactService.getDetailedContactPerson(id);
+		dto.setPhoneNumber("+36 30 123 4508");
+
+		contactService.updateContactPerson(id, dto, null);
+
+		assertThat(contactService.getContactPersonVersion(id).getVersion()).isEqualTo(version + 1);
+		assertThat(contactService.getActiveContactsFingerprint(null, null, "8asd@gmail.com", null, null, 0))
+				.isNotEqualTo(fingerprint);
+	}
+
+	@Test
+	void storedPhoneNumbersAreBackfilledToE164() {
+		Long id = findIdByEmail("14asd@gmail.com");
+		jdbcTemplate.update("update contact_person set phone_number = ? where id = ?", "06 30 123 4614", id);
+		Long version = contactService.getContactPersonVersion(id).getVersion();
+		changeLog.flush();
+		List<ContactChangeDTO> before = changeLog.getChangesSince(0, 1000);
+		long since = before.isEmpty() ? 0 : before.get(before.size() - 1).getSequence();
+
+		assertThat(phoneNumberBackfill.backfill()).isEqualTo(1);
+
+		ContactPerson contact = contactRepo.findById(id).get();
+		assertThat(contact.getPhoneNumber()).isEqualTo("+36301234614");
+		assertThat(contact.getVersion()).isEqualTo(version + 1);
+		changeLog.flush();
+		List<ContactChangeDTO> changes = changeLog.getChangesSince(since, 10);
+		assertThat(changes).extracting(ContactChangeDTO::getType, ContactChangeDTO::getContactId,
+				ContactChangeDTO::getContactVersion).containsExactly(tuple(ChangeType.UPDATE, id, version + 1));
+		assertThat(changes.get(0).getContact().get("phoneNumber").asText()).isEqualTo("+36301234614");
+		assertThat(jdbcTemplate.queryForObject("select count(*) from data_migration where name = ?", Integer.class,
+				PhoneNumberBackfill.MIGRATION)).as("completed at startup").isEqualTo(1);
+		assertThat(contactRepo.findById(findIdByEmail("15asd@gmail.com")).get().getPhoneNumber()).isEqualTo("asd15");
+	}
+
+	@Test
+	void staleVersionIsRejected() throws Exception {
+		Long id = findIdByEmail("9asd@gmail.com");
+		Long version = contactService.getContactPersonVersion(id).getVersion();
+		ContactPersonDTO dto = contactService.getDetailedContactPerson(id);
+		dto.setPhoneNumber("+36 30 123 4509");
+		contactService.updateContactPerson(id, dto, version);
+
+		dto.setComment("Lost update");
+		assertThatThrownBy(() -> contactService.updateContactPerson(id, dto, version))
+				.isInstanceOf(ObjectOptimisticLockingFailureException.class);
+		assertThat(contactRepo.findById(id).get().getComment()).isNull();
+	}
+
+	@Test
+	void searchIndexIsBuiltAtStartup() {
+		assertThat(contactService.searchContacts("company12", 10))
+				.extracting(SimplifiedContactPersonDTO::getEmail).startsWith("12asd@gmail.com");
+	}
+
+	@Test
+	void commentsAreFullTextSearchable() throws Exception {
+		Long id = findIdByEmail("10asd@gmail.com");
+		ContactPersonDTO dto = contactService.getDetailedContactPerson(id);
+		dto.setPhoneNumber("+36 30 123 4510");
+		dto.setComment("Prefers phone calls in the morning");
+		contactService.updateContactPerson(id, dto, null);
+
+		assertThat(contactService.searchContactsByComment("morning calls", 0))
+				.extracting(SimplifiedContactPersonDTO::getEmail).containsExactly("10asd@gmail.com");
+		assertThat(contactService.searchContactsByComment("evening", 0)).isEmpty();
+	}
+
+	@Test
+	void serviceCallsAndSubStepsAreTimed() {
+		contactService.getActiveContacts(null, null, null, "+36 30 123 4567", null, 0);
+		contactService.getActiveContacts(null, null, null, null, null, 0);
+
+		assertThat(meterRegistry.get("contacts.service").tag("method", "getActiveContacts").timer().count())
+				.isGreaterThanOrEqualTo(2);
+		assertThat(meterRegistry.get("contacts.service.mapping").tag("view", "table").timer().count())
+				.isGreaterThanOrEqualTo(10);
+		assertThat(meterRegistry.get("contacts.service.phone-validation").timer().count()).isGreaterThanOrEqualTo(1);
+		assertThat(meterRegistry.get("spring.data.repository.invocations").tag("method", "findSlice").timer()
+				.count()).isGreaterThanOrEqualTo(2);
+	}
+
+	@Test
+	void mutationsAreWrittenToTheChangeLog() throws Exception {
+		changeLog.flush();
+		List<ContactChangeDTO> before = changeLog.getChangesSince(0, 1000);
+		long since = before.isEmpty() ? 0 : before.get(before.size() - 1).getSequence();
+		Long id = findIdByEmail("11asd@gmail.com");
+		ContactPersonDTO dto = contactService.getDetailedContactPerson(id);
+		dto.setPhoneNumber("+36 30 123 4511");
+		dto.setComment("Audited");
+		contactService.updateContactPerson(id, dto, null);
+		contactService.deleteContactPersonById(id);
+
+		changeLog.flush();
+		List<ContactChangeDTO> changes = changeLog.getChangesSince(since, 10);
+
+		assertThat(changes).extracting(ContactChangeDTO::getType).containsExactly(ChangeType.UPDATE,
+				ChangeType.DELETE);
+		assertThat(changes).extracting(ContactChangeDTO::getContactId).containsOnly(id);
+		assertThat(changes.get(0).getContact().get("comment").asText()).isEqualTo("Audited");
+		assertThat(changes.get(1).getSequence()).isGreaterThan(changes.get(0).getSequence());
+		assertThat(changeLog.getChangesSince(changes.get(1).getSequence(), 10)).isEmpty();
+	}
+
+	@Test
+	void companyListIsScopedToTheCompany() {
+		Long companyId = companyRepository.findByName("company7").getId();
+
+		List<SimplifiedContactPersonDTO> page = contactService.getActiveContactsOfCompany(companyId, null, null, null,
+				null, null, 0);
+
+		assertThat(page).extracting(SimplifiedContactPersonDTO::getEmail).containsExactly("7asd@gmail.com");
+		assertThat(contactService.getActiveContactsOfCompany(companyId, null, null, "3asd@gmail.com", null, null, 0))
+				.isEmpty();
+	}
+
+	@Test
+	void sparseDetailSelectsOnlyRequestedFields() throws Exception {
+		Long id = findIdByEmail("13asd@gmail.com");
+		statistics.clear();
+
+		Map<String, Object> fields = contactService.getContactPersonFields(id,
+				ContactField.fromParameter("companyName,firstName"));
+
+		assertThat(fields).containsExactly(entry("firstName", "87First13"), entry("companyName", "company13"));
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+		assertThatThrownBy(() -> contactService.getContactPersonFields(-1L, ContactField.fromParameter("email")))
+				.isInstanceOf(ContactPersonNotFoundException.class);
+	}
+
+	@Test
+	void unknownIdIsReportedAsNotFound() {
+		assertThatThrownBy(() -> contactService.getDetailedContactPerson(-1L))
+				.isInstanceOf(ContactPersonNotFoundException.class);
+		assertThatThrownBy(() -> contactService.deleteContactPersonById(-1L))
+				.isInstanceOf(ContactPersonNotFoundException.class);
+	}
+
+	private Long findIdByEmail(String email) {
+		ContactPerson contact = contactRepo
+				.findOne(ContactPersonSpecifications.activeMatching(null, null, email, null, null)).get();
+		return contact.getId();
+	}
+
+}
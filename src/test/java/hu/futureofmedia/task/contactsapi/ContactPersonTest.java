@@ -1,14 +1,27 @@
 package hu.futureofmedia.task.contactsapi;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -16,17 +29,29 @@ import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.google.gson.Gson;
 
 import hu.futureofmedia.task.contactsapi.controllers.ContactPersonController;
+import hu.futureofmedia.task.contactsapi.dto.ContactChangeDTO;
 import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.CursorPageDTO;
 import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.entities.ChangeType;
 import hu.futureofmedia.task.contactsapi.entities.Company;
 import hu.futureofmedia.task.contactsapi.entities.ContactPerson;
+import hu.futureofmedia.task.contactsapi.exceptions.ContactPersonNotFoundException;
+import hu.futureofmedia.task.contactsapi.repositories.ContactPersonVersion;
+import hu.futureofmedia.task.contactsapi.services.ContactChangeLog;
+import hu.futureofmedia.task.contactsapi.services.ContactExportService;
+import hu.futureofmedia.task.contactsapi.services.ContactField;
+import hu.futureofmedia.task.contactsapi.services.ContactImportService;
 import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
 
 @RunWith(SpringRunner.class)
@@ -36,11 +61,19 @@ public class ContactPersonTest {
 	@MockBean
 	ContactPersonService contactService;
 
+	@MockBean
+	ContactImportService importService;
+
+	@MockBean
+	ContactExportService exportService;
+
+	@MockBean
+	ContactChangeLog changeLog;
+
 	@Autowired
 	private MockMvc mvc;
 
-	@Autowired
-	private ModelMapper modelMapper;
+	private final ModelMapper modelMapper = new ModelMapper();
 
 	private List<SimplifiedContactPersonDTO> createInitList() {
 		List<SimplifiedContactPersonDTO> resultList = new ArrayList<>();
@@ -79,9 +112,11 @@ public class ContactPersonTest {
 		Company company = new Company(1L, "company");
 		List<SimplifiedContactPersonDTO> testContacts = createInitList();
 
-		when(contactService.getActiveContacts(null, null, null, null, null, 0)).thenReturn(testContacts);
+		when(contactService.getActiveContactsPage(null, null, null, null, null, 0))
+				.thenReturn(new CursorPageDTO<>(testContacts, null, "abc"));
 		mvc.perform(get("/contacts?page-number=1")).andDo(MockMvcResultHandlers.print())
-				.andExpect(jsonPath("$", hasSize(5)));
+				.andExpect(jsonPath("$", hasSize(5))).andExpect(header().string("ETag", "\"abc\""));
+		verify(contactService, never()).getActiveContactsFingerprint(null, null, null, null, null, 0);
 
 		mvc.perform(get("/contacts")).andExpect(status().is4xxClientError());
 
@@ -99,23 +134,99 @@ public class ContactPersonTest {
 	}
 
 	@Test
-	private void deleteContact() throws Exception {
+	public void conditionalGet() throws Exception {
+		ContactPersonDTO contact = createContact(new Company(1L, "company"));
+		contact.setId(3L);
+		contact.setVersion(2L);
+		when(contactService.getDetailedContactPerson(3L)).thenReturn(contact);
+		mvc.perform(get("/contacts/3").header("If-None-Match", "\"3-2\"")).andExpect(status().isNotModified())
+				.andExpect(header().string("ETag", "\"3-2\""));
+		mvc.perform(get("/contacts/3").header("If-None-Match", "\"3-1\"")).andExpect(status().isOk())
+				.andExpect(header().string("ETag", "\"3-2\"")).andExpect(jsonPath("$.version").doesNotExist());
+		verify(contactService, never()).getContactPersonVersion(3L);
+
+		when(contactService.getActiveContactsFingerprint(null, null, null, null, null, 0)).thenReturn("abc");
+		mvc.perform(get("/contacts?page-number=1").header("If-None-Match", "\"abc\""))
+				.andExpect(status().isNotModified());
+		verify(contactService, never()).getActiveContactsPage(null, null, null, null, null, 0);
+	}
+
+	@Test
+	public void updateWithIfMatch() throws Exception {
 		Company company = new Company(1L, "company");
 		ContactPersonDTO contact = createContact(company);
 		ContactPerson entity = modelMapper.map(contact, ContactPerson.class);
-		entity.setCompany(company);
-		entity.setId(1L);
-		when(contactService.deleteContactPersonById(1L)).thenReturn(entity);
-		mvc.perform(get("/contacts/1").contentType("application/json")).andDo(MockMvcResultHandlers.print())
-				.andExpect(status().isOk()).andExpect(jsonPath("$.firstName").value(contact.getFirstName()))
-				.andExpect(jsonPath("$.lastName").value(contact.getLastName()))
-				.andExpect(jsonPath("$.email").value(contact.getEmail()))
-				.andExpect(jsonPath("$.phoneNumber").value(contact.getPhoneNumber()))
-				.andExpect(jsonPath("$.comment").value(contact.getComment()))
-				.andExpect(jsonPath("$.createdAt").value(contact.getCreatedAt()))
-				.andExpect(jsonPath("$.lastModified").value(contact.getLastModified()))
-				.andExpect(jsonPath("$.company.id").value(company.getId()))
-				.andExpect(jsonPath("$.company.name").value(company.getName()));
+		entity.setId(4L);
+		entity.setVersion(3L);
+		when(contactService.updateContactPerson(4L, contact, 2L)).thenReturn(entity);
+		when(contactService.updateContactPerson(4L, contact, 1L))
+				.thenThrow(new ObjectOptimisticLockingFailureException(ContactPerson.class, 4L));
+		String body = new Gson().toJson(contact);
+
+		mvc.perform(post("/contacts/4").contentType("application/json").header("If-Match", "\"4-2\"").content(body))
+				.andExpect(status().isOk()).andExpect(header().string("ETag", "\"4-3\""));
+		mvc.perform(post("/contacts/4").contentType("application/json").header("If-Match", "\"4-1\"").content(body))
+				.andExpect(status().isPreconditionFailed());
+		mvc.perform(post("/contacts/4").contentType("application/json").header("If-Match", "\"5-2\"").content(body))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	@Test
+	public void sparseFieldsAndBinaryFormats() throws Exception {
+		when(contactService.getContactPersonVersion(5L)).thenReturn(createVersion(5L, 0L));
+		Map<String, Object> fields = new LinkedHashMap<>();
+		fields.put("firstName", "John");
+		fields.put("email", "test@test.com");
+		when(contactService.getContactPersonFields(5L, EnumSet.of(ContactField.FIRST_NAME, ContactField.EMAIL)))
+				.thenReturn(fields);
+
+		mvc.perform(get("/contacts/5?fields=email,firstName")).andExpect(status().isOk())
+				.andExpect(jsonPath("$.firstName").value("John")).andExpect(jsonPath("$.email").value("test@test.com"))
+				.andExpect(jsonPath("$.comment").doesNotExist()).andExpect(header().string("Vary", "Accept"));
+		mvc.perform(get("/contacts/5?fields=email,password")).andExpect(status().isBadRequest());
+
+		when(contactService.getDetailedContactPerson(5L)).thenReturn(createContact(new Company(1L, "company")));
+		byte[] cbor = mvc.perform(get("/contacts/5").accept("application/cbor")).andExpect(status().isOk())
+				.andExpect(content().contentType("application/cbor")).andReturn().getResponse()
+				.getContentAsByteArray();
+		assertThat(new ObjectMapper(new CBORFactory()).readValue(cbor, ContactPersonDTO.class).getEmail())
+				.isEqualTo("test@test.com");
+		mvc.perform(get("/contacts/5").accept("application/x-jackson-smile")).andExpect(status().isOk())
+				.andExpect(content().contentType("application/x-jackson-smile"));
+	}
+
+	@Test
+	public void changesInBinaryFormats() throws Exception {
+		ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+		ContactChangeDTO change = new ContactChangeDTO(7L, 5L, ChangeType.UPDATE, 1L, new Date(),
+				new ObjectMapper().valueToTree(createContact(new Company(1L, "company"))));
+		when(changeLog.getChangesSince(0, 100)).thenReturn(Collections.singletonList(change));
+
+		byte[] cbor = mvc.perform(get("/contacts/changes").accept("application/cbor")).andExpect(status().isOk())
+				.andExpect(content().contentType("application/cbor")).andReturn().getResponse()
+				.getContentAsByteArray();
+		assertThat(cborMapper.readTree(cbor).get(0).get("contact").get("email").asText()).isEqualTo("test@test.com");
+		mvc.perform(get("/contacts/changes").accept("application/x-jackson-smile")).andExpect(status().isOk());
+		mvc.perform(get("/contacts/changes")).andExpect(status().isOk())
+				.andExpect(jsonPath("$[0].contact.email").value("test@test.com"));
+	}
+
+	@Test
+	public void deleteContact() throws Exception {
+		mvc.perform(delete("/contacts/1")).andDo(MockMvcResultHandlers.print()).andExpect(status().isNoContent());
+		verify(contactService).deleteContactPersonById(1L);
+
+		doThrow(new ContactPersonNotFoundException("Contact person was not found with this ID")).when(contactService)
+				.deleteContactPersonById(2L);
+		mvc.perform(delete("/contacts/2")).andExpect(status().isNotFound());
+	}
+
+	private ContactPersonVersion createVersion(Long id, Long versionNumber) {
+		ContactPersonVersion version = mock(ContactPersonVersion.class);
+		when(version.getId()).thenReturn(id);
+		when(version.getVersion()).thenReturn(versionNumber);
+		when(version.getLastModified()).thenReturn(new Date(1631577600000L));
+		return version;
 	}
 
 	private ContactPersonDTO createContact(Company company) {
@@ -0,0 +1,84 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.services.ContactSearchIndex;
+
+class ContactSearchIndexTest {
+
+	private ContactSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new ContactSearchIndex();
+		index.put(1L, new SimplifiedContactPersonDTO("Kovcs Anna", "Plda Kft.", "anna.kovacs@example.com",
+				"+36301234567"));
+		index.put(2L, new SimplifiedContactPersonDTO("Nagy Pter", "Minta Zrt.", "peter.nagy@example.com",
+				"+36301234568"));
+		index.put(3L, new SimplifiedContactPersonDTO("Kovalenko Ivn", "Minta Zrt.", "ivan@minta.hu",
+				"+36301234569"));
+	}
+
+	@Test
+	void prefixMatchesAllWordsWithoutAccents() {
+		assertThat(emails(index.search("kov", 10))).containsExactly("anna.kovacs@example.com", "ivan@minta.hu");
+		assertThat(emails(index.search("Kovcs minta", 10))).isEmpty();
+		assertThat(emails(index.search("kov minta", 10))).containsExactly("ivan@minta.hu");
+		assertThat(emails(index.search("peter.na", 10))).containsExactly("peter.nagy@example.com");
+	}
+
+	@Test
+	void typosAreToleratedAfterPrefixMatches() {
+		assertThat(emails(index.search("Kovacs", 10))).containsExactly("anna.kovacs@example.com");
+		assertThat(emails(index.search("Kozma", 10))).isEmpty();
+		assertThat(emails(index.search("Kovasc", 10))).containsExactly("anna.kovacs@example.com");
+		assertThat(emails(index.search("Nogy", 10))).containsExactly("peter.nagy@example.com");
+	}
+
+	@Test
+	void shortPrefixesStopAtTheLimit() {
+		for (long id = 10; id < 1010; id++) {
+			index.put(id, new SimplifiedContactPersonDTO("Teszt" + id + " Elek", "Minta Zrt.", "t" + id + "@minta.hu",
+					"+3630" + id));
+		}
+
+		assertThat(index.search("t", 5)).hasSize(5);
+		assertThat(emails(index.search("elek t1009", 10))).containsExactly("t1009@minta.hu");
+	}
+
+	@Test
+	void prefixesMatchingTooManyWordsAreStillMatched() {
+		for (long id = 10; id < 310; id++) {
+			index.put(id, new SimplifiedContactPersonDTO("Aa" + id + " Elek", "Minta Zrt.", "e" + id + "@minta.hu",
+					"+3630" + id));
+		}
+		index.put(400L, new SimplifiedContactPersonDTO("Az Kovcs", "Plda Kft.", "z.kovacs@pelda.hu",
+				"+36301234570"));
+
+		assertThat(emails(index.search("a kovacs", 10))).containsExactlyInAnyOrder("anna.kovacs@example.com",
+				"z.kovacs@pelda.hu");
+		assertThat(emails(index.search("a", 100))).hasSize(100).doesNotContain("ivan@minta.hu");
+	}
+
+	@Test
+	void updatesAndRemovalsAreVisible() {
+		index.put(2L, new SimplifiedContactPersonDTO("Nagy Pter", "j Bt.", "peter.nagy@example.com",
+				"+36301234568"));
+		index.remove(3L);
+
+		assertThat(emails(index.search("minta", 10))).isEmpty();
+		assertThat(emails(index.search("uj", 10))).containsExactly("peter.nagy@example.com");
+	}
+
+	private List<String> emails(List<SimplifiedContactPersonDTO> contacts) {
+		return contacts.stream().map(SimplifiedContactPersonDTO::getEmail).collect(Collectors.toList());
+	}
+
+}
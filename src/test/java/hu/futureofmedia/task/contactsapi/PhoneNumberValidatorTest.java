@@ -0,0 +1,46 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.i18n.phonenumbers.NumberParseException;
+
+import hu.futureofmedia.task.contactsapi.services.PhoneNumberValidator;
+
+class PhoneNumberValidatorTest {
+
+	private final PhoneNumberValidator validator = new PhoneNumberValidator("HU", 100, 2);
+
+	@AfterEach
+	void tearDown() {
+		validator.shutdown();
+	}
+
+	@Test
+	void numbersAreNormalizedToE164() throws Exception {
+		assertThat(validator.normalize("+36 30 123 4567")).isEqualTo("+36301234567");
+		assertThat(validator.normalize("06 30 123 4567")).isEqualTo("+36301234567");
+		assertThat(validator.normalize("+1 650-253-0000")).isEqualTo("+16502530000");
+	}
+
+	@Test
+	void invalidNumbersAreRejected() {
+		assertThatThrownBy(() -> validator.normalize("asd1")).isInstanceOf(NumberParseException.class);
+		assertThatThrownBy(() -> validator.normalize("+36 30 123")).isInstanceOf(NumberParseException.class);
+		assertThatThrownBy(() -> validator.normalize(null)).isInstanceOf(NumberParseException.class);
+		assertThat(validator.normalizeIfValid("asd1")).isEqualTo("asd1");
+	}
+
+	@Test
+	void batchKeepsInputOrder() {
+		assertThat(validator.validateAll(Arrays.asList("+36 30 123 4567", "asd", "06 1 234 5678")))
+				.extracting(PhoneNumberValidator.Result::getNormalized)
+				.containsExactly("+36301234567", null, "+3612345678");
+	}
+
+}
@@ -0,0 +1,115 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import hu.futureofmedia.task.contactsapi.config.AdaptiveConcurrencyLimit;
+import hu.futureofmedia.task.contactsapi.config.RateLimitFilter;
+
+class RateLimitFilterTest {
+
+	@Test
+	void clientsOverTheirRateGetTooManyRequests() throws Exception {
+		RateLimitFilter filter = new RateLimitFilter(1, 2, 1000, 1000, concurrencyLimit(10));
+
+		assertThat(get(filter, "10.0.0.1", "/contacts/1").getStatus()).isEqualTo(200);
+		assertThat(get(filter, "10.0.0.1", "/contacts/2").getStatus()).isEqualTo(200);
+		MockHttpServletResponse rejected = get(filter, "10.0.0.1", "/contacts/3");
+		assertThat(rejected.getStatus()).isEqualTo(429);
+		assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+		assertThat(get(filter, "10.0.0.2", "/contacts/1").getStatus()).isEqualTo(200);
+		assertThat(filter.getRateLimited()).isEqualTo(1);
+	}
+
+	@Test
+	void endpointRateIsSharedByAllClients() throws Exception {
+		RateLimitFilter filter = new RateLimitFilter(1000, 1000, 1, 1, concurrencyLimit(10));
+
+		assertThat(get(filter, "10.0.0.1", "/contacts/1").getStatus()).isEqualTo(200);
+		assertThat(get(filter, "10.0.0.2", "/contacts/2").getStatus()).isEqualTo(429);
+		assertThat(get(filter, "10.0.0.2", "/contacts").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void clientsCanBeKeyedByAHeader() throws Exception {
+		RateLimitFilter filter = new RateLimitFilter(1, 1, 1000, 1000, 4, "X-Forwarded-For", concurrencyLimit(10));
+
+		assertThat(get(filter, "10.0.0.9", "/contacts", "203.0.113.1, 10.0.0.9").getStatus()).isEqualTo(200);
+		assertThat(get(filter, "10.0.0.9", "/contacts", "203.0.113.1").getStatus()).isEqualTo(429);
+		assertThat(get(filter, "10.0.0.9", "/contacts", "203.0.113.2").getStatus()).isEqualTo(200);
+		assertThat(get(filter, "10.0.0.9", "/contacts").getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void stripedEndpointBucketKeepsTheTotalBurst() throws Exception {
+		RateLimitFilter filter = new RateLimitFilter(1000, 1000, 0.001, 8, 4, null, concurrencyLimit(10));
+
+		int admitted = 0;
+		for (int i = 0; i < 20; i++) {
+			if (get(filter, "10.0.0." + i, "/contacts").getStatus() == 200) {
+				admitted++;
+			}
+		}
+		assertThat(admitted).isBetween(4, 8);
+	}
+
+	@Test
+	void requestsOverTheConcurrencyLimitAreShed() throws Exception {
+		AdaptiveConcurrencyLimit limit = concurrencyLimit(1);
+		RateLimitFilter filter = new RateLimitFilter(1000, 1000, 1000, 1000, limit);
+
+		assertThat(limit.tryAcquire()).isTrue();
+		MockHttpServletResponse shed = get(filter, "10.0.0.1", "/contacts");
+		assertThat(shed.getStatus()).isEqualTo(503);
+		assertThat(shed.getHeader("Retry-After")).isEqualTo("1");
+
+		limit.release();
+		assertThat(get(filter, "10.0.0.1", "/contacts").getStatus()).isEqualTo(200);
+		assertThat(limit.getInFlight()).isZero();
+	}
+
+	@Test
+	void concurrencyLimitShrinksWhenLatencyGrows() {
+		AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 4, 200, 2.0, Duration.ofSeconds(1));
+		long start = System.nanoTime();
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(TimeUnit.MILLISECONDS.toNanos(1), start);
+		}
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(1), start + TimeUnit.SECONDS.toNanos(2));
+		assertThat(limit.getLimit()).isEqualTo(20);
+
+		for (int i = 0; i < 20; i++) {
+			limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), start + TimeUnit.SECONDS.toNanos(2));
+		}
+		limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), start + TimeUnit.SECONDS.toNanos(4));
+		assertThat(limit.getLimit()).isLessThan(20).isGreaterThanOrEqualTo(4);
+	}
+
+	private static AdaptiveConcurrencyLimit concurrencyLimit(int limit) {
+		return new AdaptiveConcurrencyLimit(limit, 1, limit, 2.0, Duration.ofMinutes(1));
+	}
+
+	private static MockHttpServletResponse get(RateLimitFilter filter, String client, String uri) throws Exception {
+		return get(filter, client, uri, null);
+	}
+
+	private static MockHttpServletResponse get(RateLimitFilter filter, String client, String uri, String forwardedFor)
+			throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.setRemoteAddr(client);
+		if (forwardedFor != null) {
+			request.addHeader("X-Forwarded-For", forwardedFor);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain());
+		return response;
+	}
+
+}
@@ -0,0 +1,53 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import hu.futureofmedia.task.contactsapi.dto.ContactPersonDTO;
+import hu.futureofmedia.task.contactsapi.dto.SimplifiedContactPersonDTO;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({ "reactive", "demo" })
+class ReactiveContactApiTest {
+
+	@Autowired
+	private WebTestClient webClient;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void listPageIsStreamedFromR2dbc() {
+		webClient.get().uri("/contacts?page-number=1").exchange()
+				.expectStatus().isOk()
+				.expectBodyList(SimplifiedContactPersonDTO.class).hasSize(10);
+	}
+
+	@Test
+	void detailSupportsConditionalGet() {
+		Long id = jdbcTemplate.queryForObject("select id from contact_person where email = ?", Long.class,
+				"3asd@gmail.com");
+
+		String eTag = webClient.get().uri("/contacts/{id}", id).exchange()
+				.expectStatus().isOk()
+				.expectBody(ContactPersonDTO.class)
+				.value(dto -> assertThat(dto.getCompanyName()).isEqualTo("company3"))
+				.returnResult().getResponseHeaders().getETag();
+
+		webClient.get().uri("/contacts/{id}", id).header(HttpHeaders.IF_NONE_MATCH, eTag).exchange()
+				.expectStatus().isNotModified();
+	}
+
+	@Test
+	void unknownContactIsNotFound() {
+		webClient.get().uri("/contacts/{id}", Long.MAX_VALUE).exchange().expectStatus().isNotFound();
+	}
+
+}
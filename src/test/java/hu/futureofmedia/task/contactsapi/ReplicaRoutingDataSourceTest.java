@@ -0,0 +1,187 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import hu.futureofmedia.task.contactsapi.config.ClientWrites;
+import hu.futureofmedia.task.contactsapi.config.ReadYourWritesFilter;
+import hu.futureofmedia.task.contactsapi.config.ReplicaRoutingDataSource;
+import hu.futureofmedia.task.contactsapi.services.ContactPersonService;
+
+class ReplicaRoutingDataSourceTest {
+
+	private EmbeddedDatabase primary;
+	private EmbeddedDatabase replica;
+	private volatile boolean replicaDown;
+	private ReplicaRoutingDataSource routing;
+
+	@BeforeEach
+	void setUp() {
+		primary = database("primary");
+		replica = database("replica");
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		routing.close();
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		DataSource dataSource = routing(Duration.ZERO);
+		assertThat(node(dataSource, true)).isEqualTo("replica");
+		assertThat(node(dataSource, false)).isEqualTo("primary");
+		assertThat(new JdbcTemplate(dataSource).queryForObject("select name from node", String.class))
+				.isEqualTo("primary");
+	}
+
+	@Test
+	void readsFallBackToThePrimaryWhileTheReplicaIsDown() {
+		DataSource dataSource = routing(Duration.ZERO);
+		replicaDown = true;
+		assertThat(node(dataSource, true)).isEqualTo("primary");
+		assertThat(routing.isReplicaHealthy()).isFalse();
+
+		replicaDown = false;
+		assertThat(node(dataSource, true)).isEqualTo("primary");
+		routing.checkReplica();
+		assertThat(node(dataSource, true)).isEqualTo("replica");
+	}
+
+	@Test
+	void onlyTheWritingClientReadsFromThePrimaryAfterItsWrite() {
+		DataSource dataSource = routing(Duration.ofMinutes(1));
+		write(dataSource);
+		assertThat(node(dataSource, true)).as("background write").isEqualTo("replica");
+
+		List<Long> cookies = new ArrayList<>();
+		ClientWrites.bind(new ClientWrites(0, cookies::add));
+		try {
+			assertThat(node(dataSource, true)).isEqualTo("replica");
+			write(dataSource);
+			assertThat(cookies).hasSize(1);
+			assertThat(node(dataSource, true)).isEqualTo("primary");
+
+			ClientWrites.bind(new ClientWrites(0, millis -> {
+			}));
+			assertThat(node(dataSource, true)).as("other client").isEqualTo("replica");
+			ClientWrites.bind(new ClientWrites(cookies.get(0), millis -> {
+			}));
+			assertThat(node(dataSource, true)).as("same client, next request").isEqualTo("primary");
+		} finally {
+			ClientWrites.unbind();
+		}
+	}
+
+	@Test
+	void filterKeepsTheLastWriteInACookie() throws Exception {
+		DataSource dataSource = routing(Duration.ofSeconds(2));
+		ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(2));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest(), response, new MockFilterChain(new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response) {
+				write(dataSource);
+			}
+		}));
+
+		Cookie cookie = response.getCookie("contacts-last-write");
+		assertThat(cookie).isNotNull();
+		assertThat(cookie.getMaxAge()).isEqualTo(2);
+
+		MockHttpServletRequest next = new MockHttpServletRequest();
+		next.setCookies(cookie);
+		List<String> nodes = new ArrayList<>();
+		filter.doFilter(next, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest request, HttpServletResponse response) {
+				nodes.add(node(dataSource, true));
+			}
+		}));
+		assertThat(nodes).containsExactly("primary");
+		assertThat(node(dataSource, true)).isEqualTo("replica");
+	}
+
+	@Test
+	void cachedDetailViewIsLoadedFromThePrimary() throws Exception {
+		DataSource dataSource = routing(Duration.ofMinutes(1));
+		TransactionAttribute detailView = new AnnotationTransactionAttributeSource().getTransactionAttribute(
+				ContactPersonService.class.getMethod("getDetailedContactPerson", Long.class),
+				ContactPersonService.class);
+
+		assertThat(detailView).isNotNull();
+		assertThat(node(dataSource, detailView.isReadOnly())).as("cache-filling load of another client")
+				.isEqualTo("primary");
+	}
+
+	private DataSource routing(Duration readYourWrites) {
+		DataSource failingReplica = new DelegatingDataSource(replica) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				if (replicaDown) {
+					throw new SQLException("Replica is down");
+				}
+				return super.getConnection();
+			}
+		};
+		routing = new ReplicaRoutingDataSource(primary, failingReplica, Duration.ZERO, readYourWrites);
+		return new LazyConnectionDataSourceProxy(routing);
+	}
+
+	private static void write(DataSource dataSource) {
+		transaction(dataSource, false)
+				.executeWithoutResult(status -> new JdbcTemplate(dataSource).update("update node set name = name"));
+	}
+
+	private static String node(DataSource dataSource, boolean readOnly) {
+		return transaction(dataSource, readOnly).execute(
+				status -> new JdbcTemplate(dataSource).queryForObject("select name from node", String.class));
+	}
+
+	private static TransactionTemplate transaction(DataSource dataSource, boolean readOnly) {
+		TransactionTemplate template = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		template.setReadOnly(readOnly);
+		return template;
+	}
+
+	private static EmbeddedDatabase database(String name) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).setName(name)
+				.build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("create table node (name varchar(20))");
+		jdbcTemplate.update("insert into node values (?)", name);
+		return database;
+	}
+
+}
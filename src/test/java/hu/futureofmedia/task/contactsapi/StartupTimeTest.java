@@ -0,0 +1,70 @@
+package hu.futureofmedia.task.contactsapi;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+/**
+ * Az els sikeres krsig eltelt id mrse egy j JVM-ben indtott
+ * alkalmazson, gy a mrs nem fgg a tbbi teszt ltal mr betlttt
+ * osztlyoktl. A korlt a {@code startup.budget} rendszertulajdonsggal
+ * (pl. 15s) szigorthat. j JVM-et indt s falira idt mr, ezrt nem a
+ * {@code test}, hanem a kln {@code startupTest} Gradle feladat futtatja.
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+	private static final Duration BUDGET = Duration
+			.parse("PT" + System.getProperty("startup.budget", "60s").toUpperCase());
+
+	@Test
+	void firstRequestIsServedWithinBudget(TestReporter reporter) throws Exception {
+		int port = freePort();
+		ProcessBuilder builder = new ProcessBuilder(
+				System.getProperty("java.home") + File.separator + "bin" + File.separator + "java", "-cp",
+				System.getProperty("java.class.path"), ContactsApiApplication.class.getName(),
+				"--server.port=" + port, "--spring.datasource.url=jdbc:h2:mem:startup")
+				.redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+		HttpRequest request = HttpRequest
+				.newBuilder(URI.create("http://localhost:" + port + "/contacts?page-number=1")).build();
+
+		long start = System.nanoTime();
+		Process process = builder.start();
+		try {
+			Duration elapsed = null;
+			while (elapsed == null && process.isAlive() && System.nanoTime() - start < BUDGET.toNanos()) {
+				try {
+					if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+						elapsed = Duration.ofNanos(System.nanoTime() - start);
+					}
+				} catch (IOException e) {
+					Thread.sleep(20);
+				}
+			}
+			assertThat(elapsed).as("time to first request within %s", BUDGET).isNotNull().isLessThan(BUDGET);
+			reporter.publishEntry("timeToFirstRequestMillis", String.valueOf(elapsed.toMillis()));
+		} finally {
+			process.destroy();
+			process.waitFor();
+		}
+	}
+
+	private static int freePort() throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+}